@@ -21,22 +21,21 @@ import jdk.javadoc.doclet.StandardDoclet;
 import net.sourceforge.plantuml.version.Version;
 import nl.talsmasoftware.umldoclet.html.HtmlPostprocessor;
 import nl.talsmasoftware.umldoclet.javadoc.DocletConfig;
+import nl.talsmasoftware.umldoclet.javadoc.ModelSnapshot;
 import nl.talsmasoftware.umldoclet.javadoc.UMLFactory;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.PlantumlWarmup;
 import nl.talsmasoftware.umldoclet.uml.UMLDiagram;
 
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.PackageElement;
-import javax.lang.model.element.TypeElement;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_PHASE_DURATION;
 import static nl.talsmasoftware.umldoclet.logging.Message.DOCLET_COPYRIGHT;
 import static nl.talsmasoftware.umldoclet.logging.Message.DOCLET_VERSION;
 import static nl.talsmasoftware.umldoclet.logging.Message.ERROR_UNANTICIPATED_ERROR_GENERATING_UML;
@@ -52,6 +51,8 @@ import static nl.talsmasoftware.umldoclet.logging.Message.PLANTUML_COPYRIGHT;
  */
 public class UMLDoclet extends StandardDoclet {
 
+    private static final long WARMUP_TIMEOUT_MILLIS = 5000L;
+
     private final DocletConfig config;
 
     public UMLDoclet() {
@@ -82,9 +83,24 @@ public class UMLDoclet extends StandardDoclet {
 
     @Override
     public boolean run(DocletEnvironment docEnv) {
-        return generateUMLDiagrams(docEnv)
-                && super.run(docEnv)
-                && postProcessHtml();
+        final Thread warmup = config.warmup() ? PlantumlWarmup.start(config) : null;
+        try {
+            return timed("uml-generation", () -> generateUMLDiagrams(docEnv))
+                    && timed("standard-doclet", () -> super.run(docEnv))
+                    && timed("html-postprocessing", this::postProcessHtml);
+        } finally {
+            PlantumlWarmup.awaitCompletion(warmup, WARMUP_TIMEOUT_MILLIS);
+            config.close();
+        }
+    }
+
+    private boolean timed(String phase, BooleanSupplier action) {
+        final long start = System.nanoTime();
+        try {
+            return action.getAsBoolean();
+        } finally {
+            config.logger().debug(DEBUG_PHASE_DURATION, phase, (System.nanoTime() - start) / 1_000_000L);
+        }
     }
 
     private boolean generateUMLDiagrams(DocletEnvironment docEnv) {
@@ -92,11 +108,18 @@ public class UMLDoclet extends StandardDoclet {
             config.logger().info(DOCLET_COPYRIGHT, DOCLET_VERSION);
             config.logger().info(PLANTUML_COPYRIGHT, Version.versionString());
 
-            UMLFactory factory = new UMLFactory(config, docEnv);
-            return streamIncludedElements(docEnv.getIncludedElements())
-                    .map(element -> mapToDiagram(factory, element))
-                    .filter(Optional::isPresent).map(Optional::get)
-                    .map(UMLDiagram::render)
+            // The javadoc model is not thread-safe; take a snapshot before creating the diagrams concurrently.
+            ModelSnapshot model = ModelSnapshot.of(config, docEnv);
+            UMLFactory factory = new UMLFactory(config, model);
+            // Announce all diagrams before rendering, so links between them don't depend on the rendering order.
+            List<UMLDiagram> diagrams = Stream.concat(
+                    model.includedTypes().parallelStream().map(factory::createClassDiagram),
+                    model.includedPackages().parallelStream().map(factory::createPackageDiagram))
+                    .collect(toList());
+            diagrams.forEach(UMLDiagram::announce);
+            // Keep the messages for each diagram together in the output.
+            return diagrams.parallelStream()
+                    .map(diagram -> config.logger().grouped(diagram::render))
                     .reduce(Boolean.TRUE, (a, b) -> a & b);
 
         } catch (RuntimeException rte) {
@@ -109,7 +132,9 @@ public class UMLDoclet extends StandardDoclet {
     private boolean postProcessHtml() {
         try {
 
-            return new HtmlPostprocessor(config).postProcessHtml();
+            // Don't add the diagrams to the HTML if their images could not be rendered (errors were logged).
+            return config.imageRenderQueue().awaitCompletion()
+                    && new HtmlPostprocessor(config).postProcessHtml();
 
         } catch (IOException | RuntimeException ex) {
             config.logger().error(ERROR_UNANTICIPATED_ERROR_POSTPROCESSING_HTML, ex);
@@ -118,27 +143,4 @@ public class UMLDoclet extends StandardDoclet {
         }
     }
 
-    private Optional<UMLDiagram> mapToDiagram(UMLFactory factory, Element element) {
-        if (element instanceof PackageElement) {
-            return Optional.of(factory.createPackageDiagram((PackageElement) element));
-        } else if (element instanceof TypeElement && (element.getKind().isClass() || element.getKind().isInterface())) {
-            return Optional.of(factory.createClassDiagram((TypeElement) element));
-        }
-        return Optional.empty();
-    }
-
-    /**
-     * Orders included elements where types are rendered first before packages.
-     * This helps detecting broken links to classes that are not included.
-     *
-     * @param elements The elements to be ordered, types-first
-     * @return The ordered elements
-     */
-    private static Stream<? extends Element> streamIncludedElements(Collection<? extends Element> elements) {
-        final List<Element> types = new ArrayList<>();
-        final List<Element> other = new ArrayList<>();
-        elements.forEach(elem -> (elem instanceof TypeElement ? types : other).add(elem));
-        return Stream.concat(types.stream(), other.stream());
-    }
-
 }
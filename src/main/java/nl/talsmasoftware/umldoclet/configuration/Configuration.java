@@ -16,10 +16,14 @@
 package nl.talsmasoftware.umldoclet.configuration;
 
 import nl.talsmasoftware.umldoclet.logging.Logger;
+import nl.talsmasoftware.umldoclet.rendering.FragmentCache;
 import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.ImageRenderQueue;
 
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Configuration that influences <em>how</em> UML should be rendered.
@@ -67,6 +71,26 @@ public interface Configuration {
      */
     List<String> excludedTypeReferences();
 
+    /**
+     * Container types that are rendered as a reference to their type argument with cardinality {@code 0..1}.
+     * <p>
+     * By default these are the Java 8 and Guava {@code Optional} types,
+     * more can be added with the {@code "-umlOptionalTypes"} option.
+     *
+     * @return The qualified names of the 'optional' container types.
+     */
+    Set<String> optionalTypes();
+
+    /**
+     * Container types that are rendered as a reference to their type argument with cardinality {@code *}.
+     * <p>
+     * By default these are {@code Iterable} and {@code Stream} (and therefore all their subtypes),
+     * more can be added with the {@code "-umlCollectionTypes"} option.
+     *
+     * @return The qualified names of the 'collection' container types.
+     */
+    Set<String> collectionTypes();
+
     /**
      * The UML character set can be explicitly configured with the {@code "-umlEncoding"} option.
      * <p>
@@ -91,4 +115,41 @@ public interface Configuration {
      */
     Charset htmlCharset();
 
+    /**
+     * Whether {@code .puml} and image files should only be written if their content actually changed.
+     * <p>
+     * This is configured by the {@code "-umlWriteIfChanged"} option and leaves unchanged files
+     * (and their modification times) untouched.
+     *
+     * @return {@code true} if unchanged files must not be rewritten, {@code false} to always write (the default).
+     */
+    boolean writeIfChanged();
+
+    /**
+     * The manifest of diagram images that were generated during this doclet run.
+     * <p>
+     * This allows the generated diagrams to be added to the {@code HTML} documentation
+     * without walking the whole output directory to find them again.
+     *
+     * @return The manifest of generated diagram images.
+     */
+    DiagramManifest diagramManifest();
+
+    /**
+     * The queue to render the diagram images with.
+     * <p>
+     * By default images are rendered immediately.
+     * The {@code "-umlRenderBatchSize"} option renders them in background batches instead.
+     *
+     * @return The queue to render diagram images with.
+     */
+    ImageRenderQueue imageRenderQueue();
+
+    /**
+     * The cache of rendered fragments that can be reused by the diagrams of this doclet run.
+     *
+     * @return The cache of rendered fragments.
+     */
+    FragmentCache fragmentCache();
+
 }
@@ -40,4 +40,14 @@ public interface ImageConfig {
      */
     Collection<String> formats();
 
+    /**
+     * By default PlantUML uses the external Graphviz {@code dot} program to lay out the diagrams.
+     * <p>
+     * The {@code "-umlLayoutEngine"} option can select the in-process Smetana layout instead,
+     * avoiding starting a separate process for each image.
+     *
+     * @return The layout engine for the generated images (by default {@link LayoutEngine#GRAPHVIZ GRAPHVIZ}).
+     */
+    LayoutEngine layoutEngine();
+
 }
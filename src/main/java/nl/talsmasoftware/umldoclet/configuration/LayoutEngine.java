@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.configuration;
+
+/**
+ * The layout engine PlantUML uses to render the diagram images.
+ *
+ * @author Sjoerd Talsma
+ */
+public enum LayoutEngine {
+    /**
+     * Lay out diagrams with the external Graphviz {@code dot} program (the default).
+     */
+    GRAPHVIZ,
+    /**
+     * Lay out diagrams in-process with Smetana, the Java port of Graphviz included in PlantUML.
+     */
+    SMETANA,
+    /**
+     * Use {@link #SMETANA} for small diagrams and {@link #GRAPHVIZ} for larger ones.
+     */
+    AUTO
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.daemon;
+
+import nl.talsmasoftware.umldoclet.UMLDoclet;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.spi.ToolProvider;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resident process that keeps the javadoc tool, the UML doclet and PlantUML loaded (and warmed up)
+ * between documentation runs.
+ * <p>
+ * The daemon listens on a local (loopback) socket for regeneration requests.
+ * A request starts with the secret token of the daemon, followed by the javadoc arguments, one per line,
+ * terminated by an empty line.
+ * The daemon runs javadoc with the UML doclet in-process, writes the javadoc output back and finishes the
+ * response with a line {@code exit <code>}. The request {@code shutdown} (after the token) stops the daemon.
+ * <p>
+ * The token is generated when the daemon starts and written to a token file that only the owner can read.
+ * Other local users can therefore not send requests to the daemon.
+ * Requests cannot load code into the daemon: options such as {@code -doclet}, {@code -docletpath},
+ * {@code -taglet}, {@code -J} and argument files are rejected.
+ * <p>
+ * Optionally, source directories can be watched. Whenever files change in a watched directory,
+ * the daemon repeats the javadoc run with the arguments it was started with.
+ * Combined with the {@code -umlWriteIfChanged} option, only diagrams that actually changed are rewritten
+ * and have their images rendered again.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class UMLDocletDaemon implements Closeable {
+    static final String SHUTDOWN = "shutdown";
+    static final int REJECTED = 2;
+    private static final long WATCH_QUIET_PERIOD_MILLIS = 300L;
+    private static final String DEFAULT_TOKEN_FILE = ".umldoclet-daemon.token";
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+    private static final Set<String> REJECTED_OPTIONS = unmodifiableSet(new HashSet<>(asList(
+            "-doclet", "--doclet", "-docletpath", "--doclet-path",
+            "-taglet", "--taglet", "-tagletpath", "--taglet-path")));
+
+    private final ServerSocket serverSocket;
+    private final ToolProvider javadoc;
+    private final Path tokenFile;
+    private final byte[] token;
+    int requestTimeoutMillis = REQUEST_TIMEOUT_MILLIS;
+    private volatile WatchService watchService;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new daemon listening on the specified local port.
+     *
+     * @param port      The port to listen on, or {@code 0} for any free port.
+     * @param tokenFile The file to write the secret token to, readable by the owner only.
+     * @throws IOException if the token file could not be written or the local socket could not be opened.
+     */
+    public UMLDocletDaemon(int port, Path tokenFile) throws IOException {
+        this.javadoc = ToolProvider.findFirst("javadoc")
+                .orElseThrow(() -> new IllegalStateException("The javadoc tool is not available."));
+        this.tokenFile = requireNonNull(tokenFile, "Token file is <null>.");
+        final String secret = newToken();
+        writeOwnerOnly(tokenFile, secret);
+        this.token = secret.getBytes(StandardCharsets.UTF_8);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    private static String newToken() {
+        final byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+
+    private static void writeOwnerOnly(Path file, String content) throws IOException {
+        Files.deleteIfExists(file);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            final File created = Files.createFile(file).toFile();
+            if (!created.setReadable(false, false) || !created.setReadable(true, true)
+                    || !created.setWritable(false, false) || !created.setWritable(true, true)) {
+                Files.delete(file);
+                throw new IOException("Cannot restrict access to token file: " + file);
+            }
+        }
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The file containing the secret token that must start every request.
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * @return The local port the daemon listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Runs javadoc with the UML doclet in this (warm) process.
+     * Runs are performed one at a time.
+     *
+     * @param out       The writer for the javadoc output.
+     * @param arguments The javadoc arguments (the UML doclet is added if no other doclet is specified).
+     * @return The javadoc exit code.
+     */
+    public synchronized int run(PrintWriter out, List<String> arguments) {
+        final List<String> javadocArgs = new ArrayList<>(arguments.size() + 2);
+        if (!arguments.contains("-doclet")) {
+            javadocArgs.add("-doclet");
+            javadocArgs.add(UMLDoclet.class.getName());
+        }
+        javadocArgs.addAll(arguments);
+        return javadoc.run(out, out, javadocArgs.toArray(new String[0]));
+    }
+
+    /**
+     * Serves regeneration requests until the daemon is {@linkplain #close() closed}
+     * or a {@code shutdown} request is received.
+     */
+    public void serve() {
+        while (!closed) {
+            try (Socket client = serverSocket.accept()) {
+                handle(client);
+            } catch (IOException ioe) {
+                if (!closed) System.err.println("Error handling request: " + ioe.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket client) throws IOException {
+        client.setSoTimeout(requestTimeoutMillis); // An idle client must not block the daemon
+        final BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+        final PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true);
+        final String requestToken = in.readLine();
+        if (requestToken == null || !MessageDigest.isEqual(token, requestToken.getBytes(StandardCharsets.UTF_8))) {
+            out.println("Invalid token, see " + tokenFile);
+            out.println("exit " + REJECTED);
+            return;
+        }
+        final List<String> arguments = new ArrayList<>();
+        for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+            arguments.add(line);
+        }
+        final Optional<String> rejected = arguments.stream().filter(UMLDocletDaemon::isRejected).findFirst();
+        if (rejected.isPresent()) {
+            out.println("Option not allowed in daemon requests: " + rejected.get());
+            out.println("exit " + REJECTED);
+        } else if (arguments.size() == 1 && SHUTDOWN.equals(arguments.get(0))) {
+            out.println("exit 0");
+            close();
+        } else {
+            out.println("exit " + run(out, arguments));
+        }
+    }
+
+    /**
+     * Options that would load code into the daemon (or read further options from files) are rejected.
+     *
+     * @param argument The request argument.
+     * @return Whether the argument is not allowed in requests.
+     */
+    private static boolean isRejected(String argument) {
+        final String option = argument.split("=", 2)[0];
+        return REJECTED_OPTIONS.contains(option) || option.startsWith("-J") || option.startsWith("@");
+    }
+
+    /**
+     * Watches the source directories (including subdirectories) in a background thread,
+     * regenerating the documentation with the specified arguments when files change.
+     *
+     * @param directories The source directories to watch.
+     * @param arguments   The javadoc arguments to regenerate the documentation with.
+     * @throws IOException if the directories could not be watched.
+     */
+    public void watch(Collection<Path> directories, List<String> arguments) throws IOException {
+        final List<String> watchArgs = unmodifiableList(new ArrayList<>(requireNonNull(arguments, "Arguments are <null>.")));
+        final WatchService watcher = directories.iterator().next().getFileSystem().newWatchService();
+        for (Path directory : directories) register(watcher, directory);
+        this.watchService = watcher;
+        Thread watchThread = new Thread(() -> watchLoop(watcher, watchArgs), "umldoclet-daemon-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private static void register(WatchService watcher, Path directory) throws IOException {
+        try (Stream<Path> subdirectories = Files.walk(directory)) {
+            for (Path dir : (Iterable<Path>) subdirectories.filter(Files::isDirectory)::iterator) {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watchLoop(WatchService watcher, List<String> arguments) {
+        final PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+        try {
+            while (!closed) {
+                // Wait for the first change, then until changes stop coming in before regenerating once.
+                for (WatchKey key = watcher.take(); key != null; key = watcher.poll(WATCH_QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) {
+                    registerCreatedDirectories(watcher, key);
+                    key.reset();
+                }
+                out.println("exit " + run(out, arguments));
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException watcherClosed) {
+            // daemon was closed
+        }
+    }
+
+    private static void registerCreatedDirectories(WatchService watcher, WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (StandardWatchEventKinds.ENTRY_CREATE.equals(event.kind()) && key.watchable() instanceof Path) {
+                Path created = ((Path) key.watchable()).resolve((Path) event.context());
+                if (Files.isDirectory(created)) try {
+                    register(watcher, created);
+                } catch (IOException ioe) {
+                    System.err.println("Cannot watch " + created + ": " + ioe.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the daemon: no more requests are accepted and watching stops.
+     *
+     * @throws IOException if the local socket or the watch service could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                serverSocket.close();
+            } finally {
+                try {
+                    if (watchService != null) watchService.close();
+                } finally {
+                    Files.deleteIfExists(tokenFile);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{port=" + getPort() + '}';
+    }
+
+    /**
+     * Starts the daemon.
+     * <p>
+     * Usage: {@code UMLDocletDaemon [--port <port>] [--token-file <file>] [--watch <source-dir>]... [-- <javadoc arguments>]}
+     * <p>
+     * The token file defaults to {@code .umldoclet-daemon.token} in the user's home directory.
+     * <p>
+     * The javadoc arguments are required when watching directories;
+     * they are used for the initial run and to regenerate the documentation when sources change.
+     *
+     * @param args The daemon arguments.
+     * @throws IOException if the daemon could not be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        Path tokenFile = Paths.get(System.getProperty("user.home"), DEFAULT_TOKEN_FILE);
+        final List<Path> watchDirs = new ArrayList<>();
+        final List<String> javadocArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--".equals(args[i])) {
+                for (i++; i < args.length; i++) javadocArgs.add(args[i]);
+            } else if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--token-file".equals(args[i]) && i + 1 < args.length) {
+                tokenFile = Paths.get(args[++i]);
+            } else if ("--watch".equals(args[i]) && i + 1 < args.length) {
+                watchDirs.add(Paths.get(args[++i]));
+            } else {
+                System.err.println("Usage: " + UMLDocletDaemon.class.getName()
+                        + " [--port <port>] [--token-file <file>] [--watch <source-dir>]... [-- <javadoc arguments>]");
+                System.exit(1);
+            }
+        }
+
+        try (UMLDocletDaemon daemon = new UMLDocletDaemon(port, tokenFile)) {
+            System.out.println(daemon.getClass().getSimpleName() + " listening on port " + daemon.getPort()
+                    + ", token in " + daemon.getTokenFile());
+            if (!javadocArgs.isEmpty()) {
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+                out.println("exit " + daemon.run(out, javadocArgs));
+            }
+            if (!watchDirs.isEmpty()) {
+                if (javadocArgs.isEmpty()) throw new IllegalArgumentException("Javadoc arguments required for --watch.");
+                daemon.watch(watchDirs, javadocArgs);
+            }
+            daemon.serve();
+        }
+    }
+
+}
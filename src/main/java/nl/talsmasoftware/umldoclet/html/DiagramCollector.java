@@ -16,20 +16,24 @@
 package nl.talsmasoftware.umldoclet.html;
 
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
 import nl.talsmasoftware.umldoclet.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Pattern;
 
 import static java.util.Collections.unmodifiableCollection;
@@ -37,17 +41,21 @@ import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 
 /**
- * Collects all generated diagram files from the output directory.
+ * Collects all generated diagram files.
+ * <p>
+ * The diagrams are taken from the {@linkplain DiagramManifest manifest} that was recorded while generating them.
+ * Only if no diagrams were recorded, the output directory is searched for them instead,
+ * walking its subdirectories in parallel.
  *
  * @author Sjoerd Talsma
  */
-final class DiagramCollector extends SimpleFileVisitor<Path> {
+final class DiagramCollector {
     private static final Pattern PACKAGE_DIAGRAM_PATTERN = Pattern.compile("package.[a-z]+$");
 
     private final File basedir;
     private final Optional<File> imagesDirectory;
     private final List<String> diagramExtensions;
-    private final ThreadLocal<Collection<UmlDiagram>> collected = ThreadLocal.withInitial(ArrayList::new);
+    private final DiagramManifest manifest;
 
     DiagramCollector(Configuration config) {
         this.basedir = new File(config.destinationDirectory());
@@ -57,30 +65,44 @@ final class DiagramCollector extends SimpleFileVisitor<Path> {
                 .collect(toList()));
         this.imagesDirectory = config.images().directory()
                 .map(imagesDir -> new File(config.destinationDirectory(), imagesDir));
+        this.manifest = config.diagramManifest();
     }
 
     /**
-     * Collects all generated diagram files by walking the specified path.
+     * Collects all generated diagram files from the manifest, or by walking the output directory
+     * if the manifest is empty.
      *
      * @return The collected diagrams
      * @throws IOException In case there were I/O errors walking the path
      */
     Collection<UmlDiagram> collectDiagrams() throws IOException {
         if (diagramExtensions.isEmpty()) return Collections.emptySet();
-        try {
-            Files.walkFileTree(imagesDirectory.orElse(basedir).toPath(), this);
-            return unmodifiableCollection(collected.get());
-        } finally {
-            collected.remove();
-        }
+        final Path root = imagesDirectory.orElse(basedir).toPath();
+        final List<Path> diagramPaths = manifest == null || manifest.isEmpty()
+                ? walkDiagrams(root)
+                : manifestDiagrams(root);
+        final List<UmlDiagram> diagrams = new ArrayList<>(diagramPaths.size());
+        diagramPaths.forEach(path -> createDiagramInstance(path).ifPresent(diagrams::add));
+        return unmodifiableCollection(diagrams);
+    }
+
+    private List<Path> manifestDiagrams(Path root) {
+        final Path absoluteRoot = root.toAbsolutePath().normalize();
+        return manifest.imageFiles().stream()
+                .filter(file -> FileUtils.hasExtension(file, diagramExtensions.get(0)))
+                .filter(File::isFile)
+                .map(File::toPath)
+                .filter(path -> path.toAbsolutePath().normalize().startsWith(absoluteRoot))
+                .collect(toList());
     }
 
-    @Override
-    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
-        if (attrs.isRegularFile() && FileUtils.hasExtension(path, diagramExtensions.get(0))) {
-            createDiagramInstance(path).ifPresent(collected.get()::add);
+    private List<Path> walkDiagrams(Path root) throws IOException {
+        if (!Files.isDirectory(root)) throw new IOException("Not a directory: " + root);
+        try {
+            return ForkJoinPool.commonPool().invoke(new DirectoryScan(root, diagramExtensions.get(0)));
+        } catch (UncheckedIOException walkException) {
+            throw walkException.getCause();
         }
-        return super.visitFile(path, attrs);
     }
 
     private boolean isPackageDiagram(File diagramFile) {
@@ -95,4 +117,42 @@ final class DiagramCollector extends SimpleFileVisitor<Path> {
         return Optional.of(new UmlClassDiagram(basedir, diagramFile, imagesDirectory.isPresent()));
     }
 
+    /**
+     * Scans a single directory for diagram files, forking a new scan for each subdirectory.
+     * Symbolic links are not followed.
+     */
+    private static final class DirectoryScan extends RecursiveTask<List<Path>> {
+        private final Path directory;
+        private final String extension;
+
+        private DirectoryScan(Path directory, String extension) {
+            this.directory = directory;
+            this.extension = extension;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            final List<Path> found = new ArrayList<>();
+            final List<DirectoryScan> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        DirectoryScan subdirectory = new DirectoryScan(entry, extension);
+                        subdirectory.fork();
+                        subdirectories.add(subdirectory);
+                    } else if (attrs.isRegularFile() && FileUtils.hasExtension(entry, extension)) {
+                        found.add(entry);
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            for (DirectoryScan subdirectory : subdirectories) {
+                found.addAll(subdirectory.join());
+            }
+            return found;
+        }
+    }
+
 }
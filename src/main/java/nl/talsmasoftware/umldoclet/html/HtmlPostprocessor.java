@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 
@@ -44,7 +46,7 @@ public class HtmlPostprocessor {
         }
         final Collection<UmlDiagram> diagrams = new DiagramCollector(config).collectDiagrams();
 
-        long count = Files.walk(destinationDir.toPath())
+        long count = htmlFilesToProcess(destinationDir)
                 .filter(HtmlFile::isHtmlFile)
                 .map(path -> new HtmlFile(config, path))
                 .map(htmlFile -> htmlFile.process(diagrams))
@@ -52,4 +54,18 @@ public class HtmlPostprocessor {
         return true;
     }
 
+    /**
+     * The pages that need a diagram were recorded in the manifest when the diagrams were generated.
+     * Only if the manifest has no pages, all files in the destination directory are considered.
+     *
+     * @param destinationDir The destination directory containing the generated documentation.
+     * @return The files that may need a diagram added to them.
+     * @throws IOException In case there were I/O errors walking the destination directory.
+     */
+    private Stream<Path> htmlFilesToProcess(File destinationDir) throws IOException {
+        final List<File> htmlFiles = config.diagramManifest().htmlFiles();
+        if (htmlFiles.isEmpty()) return Files.walk(destinationDir.toPath());
+        return htmlFiles.stream().distinct().map(File::toPath);
+    }
+
 }
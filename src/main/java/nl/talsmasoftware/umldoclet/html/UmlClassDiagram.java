@@ -64,6 +64,11 @@ final class UmlClassDiagram extends UmlDiagram {
         return Optional.empty();
     }
 
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + pathToCompare + '}';
+    }
+
     @Override
     public Postprocessor.Inserter newInserter(String relativePathToDiagram) {
         return new Inserter(relativePathToDiagram);
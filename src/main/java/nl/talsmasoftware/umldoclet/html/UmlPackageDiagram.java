@@ -54,6 +54,11 @@ final class UmlPackageDiagram extends UmlDiagram {
         return Optional.empty();
     }
 
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + pathToCompare + '}';
+    }
+
     @Override
     public Postprocessor.Inserter newInserter(String relativePathToDiagram) {
         return new Inserter(relativePathToDiagram);
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-2017 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Funnel for diagnostic messages that may be reported from many threads at the same time.
+ * <p>
+ * Reporting a message only enqueues it (lock-free).
+ * The queued messages are delivered by one thread at a time: the reporting thread that manages to become
+ * the drainer delivers all queued messages, including those enqueued by other threads in the meantime.
+ * Therefore messages are never delivered concurrently and messages from a single thread keep their order.
+ * <p>
+ * Messages that are reported while {@link #grouped(Supplier) performing a grouped action} are held
+ * until the action is finished, and then delivered together without messages from other threads in between.
+ *
+ * @author Sjoerd Talsma
+ */
+final class DiagnosticsFunnel {
+
+    private final Queue<List<Runnable>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final ThreadLocal<List<Runnable>> group = new ThreadLocal<>();
+
+    /**
+     * Reports a single message.
+     *
+     * @param message Delivery of the message, performed by the thread draining the funnel.
+     */
+    void report(Runnable message) {
+        final List<Runnable> messages = group.get();
+        if (messages != null) {
+            messages.add(message);
+        } else {
+            queue.add(singletonList(message));
+            drain();
+        }
+    }
+
+    /**
+     * Performs an action, holding back the messages reported by the current thread until the action is finished.
+     * Nested groups become part of the outer group.
+     *
+     * @param action The action to perform.
+     * @param <T>    The result type of the action.
+     * @return The result of the action.
+     */
+    <T> T grouped(Supplier<T> action) {
+        if (group.get() != null) return action.get();
+        final List<Runnable> messages = new ArrayList<>();
+        group.set(messages);
+        try {
+            return action.get();
+        } finally {
+            group.remove();
+            if (!messages.isEmpty()) {
+                queue.add(messages);
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        // Re-check after releasing: another thread may have enqueued just before we released the drainer role.
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                for (List<Runnable> messages = queue.poll(); messages != null; messages = queue.poll()) {
+                    messages.forEach(Runnable::run);
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+}
@@ -18,15 +18,22 @@ package nl.talsmasoftware.umldoclet.javadoc;
 import jdk.javadoc.doclet.Doclet;
 import jdk.javadoc.doclet.Reporter;
 import nl.talsmasoftware.umldoclet.UMLDoclet;
+import nl.talsmasoftware.umldoclet.logging.JsonEventLogger;
 import nl.talsmasoftware.umldoclet.logging.Logger;
+import nl.talsmasoftware.umldoclet.rendering.FragmentCache;
 import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.ImageRenderQueue;
 import nl.talsmasoftware.umldoclet.uml.Visibility;
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
 import nl.talsmasoftware.umldoclet.configuration.FieldConfig;
 import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.configuration.LayoutEngine;
 import nl.talsmasoftware.umldoclet.configuration.MethodConfig;
 import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,6 +47,7 @@ import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 
 public class DocletConfig implements Configuration {
@@ -90,6 +98,41 @@ public class DocletConfig implements Configuration {
      */
     String encoding;
 
+    /**
+     * Only write {@code .puml} and image files if their content actually changed.
+     * <p>
+     * Set by (our own) doclet option {@code -umlWriteIfChanged}, default is {@code false}.
+     */
+    boolean writeIfChanged = false;
+
+    /**
+     * File to record a structured (JSON lines) event log to.
+     * <p>
+     * Set by (our own) doclet option {@code -umlEventLog}, default is {@code null} meaning no event log.
+     */
+    String eventLogFile;
+    private volatile JsonEventLogger eventLogger;
+    private boolean eventLogClosed = false;
+
+    private final DiagramManifest diagramManifest = new DiagramManifest();
+    private final FragmentCache fragmentCache = new FragmentCache();
+
+    /**
+     * Whether PlantUML should be warmed up in the background when the doclet starts.
+     * <p>
+     * Set by (our own) doclet option {@code -umlWarmup}, default is {@code false}.
+     */
+    boolean warmup = false;
+
+    /**
+     * Number of diagrams to render per background batch.
+     * <p>
+     * Set by (our own) doclet option {@code -umlRenderBatchSize}, default is {@code 0} meaning that images are
+     * rendered immediately.
+     */
+    int renderBatchSize = 0;
+    private volatile ImageRenderQueue imageRenderQueue;
+
     final ImageCfg images = new ImageCfg();
     final FieldCfg fieldConfig = new FieldCfg();
     final MethodCfg methodConfig = new MethodCfg();
@@ -97,6 +140,22 @@ public class DocletConfig implements Configuration {
     List<String> excludedReferences = new ArrayList<>(asList(
             "java.lang.Object", "java.lang.Enum", "java.lang.annotation.Annotation"));
 
+    /**
+     * Container types referring to their type argument with cardinality {@code 0..1}.
+     * <p>
+     * Extended by (our own) doclet option {@code -umlOptionalTypes}.
+     */
+    final Set<String> optionalTypes = new LinkedHashSet<>(asList(
+            "java.util.Optional", "com.google.common.base.Optional"));
+
+    /**
+     * Container types referring to their type argument with cardinality {@code *}.
+     * <p>
+     * Extended by (our own) doclet option {@code -umlCollectionTypes}.
+     */
+    final Set<String> collectionTypes = new LinkedHashSet<>(asList(
+            "java.lang.Iterable", "java.util.stream.Stream"));
+
     private Indentation indentation = Indentation.DEFAULT;
 
     public DocletConfig(UMLDoclet doclet) {
@@ -118,6 +177,59 @@ public class DocletConfig implements Configuration {
         return reporter;
     }
 
+    /**
+     * @return Whether PlantUML should be warmed up in the background when the doclet starts.
+     */
+    public boolean warmup() {
+        return warmup;
+    }
+
+    /**
+     * The event log receives all logged messages, regardless of whether they are printed.
+     * It is opened when the first message is logged after the {@code -umlEventLog} option was set.
+     * Once the event log is {@linkplain #close() closed}, it is never reopened; later messages are not recorded.
+     *
+     * @return The structured event log, if configured and not yet closed.
+     */
+    Optional<Logger> eventLog() {
+        if (eventLogFile == null) return Optional.empty();
+        JsonEventLogger log = eventLogger;
+        if (log == null) synchronized (this) {
+            if (eventLogger == null && !eventLogClosed) eventLogger = new JsonEventLogger(new File(eventLogFile));
+            log = eventLogger;
+        }
+        return Optional.ofNullable(log);
+    }
+
+    /**
+     * Releases what was held for a single doclet run:
+     * waits for images that are still being rendered, forgets the generated diagrams and rendered fragments
+     * and closes the event log (if any), writing all remaining events.
+     */
+    public void close() {
+        try {
+            imageRenderQueue().awaitCompletion();
+        } finally {
+            diagramManifest.clear();
+            fragmentCache.clear();
+            closeEventLog();
+        }
+    }
+
+    private void closeEventLog() {
+        final JsonEventLogger log;
+        synchronized (this) {
+            log = eventLogger;
+            eventLogger = null;
+            eventLogClosed = true;
+        }
+        if (log != null) try {
+            log.close();
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Could not write event log: " + eventLogFile, ioe);
+        }
+    }
+
     @Override
     public Indentation indentation() {
         return indentation;
@@ -148,6 +260,23 @@ public class DocletConfig implements Configuration {
         return excludedReferences;
     }
 
+    @Override
+    public Set<String> optionalTypes() {
+        return unmodifiableSet(optionalTypes);
+    }
+
+    @Override
+    public Set<String> collectionTypes() {
+        return unmodifiableSet(collectionTypes);
+    }
+
+    static void addTypeNames(Set<String> typeNames, String value) {
+        if (value != null) Stream.of(value.split("[,;]"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .forEach(typeNames::add);
+    }
+
     @Override
     public Charset umlCharset() {
         return umlencoding != null ? Charset.forName(umlencoding)
@@ -161,9 +290,33 @@ public class DocletConfig implements Configuration {
                 : Charset.defaultCharset();
     }
 
+    @Override
+    public boolean writeIfChanged() {
+        return writeIfChanged;
+    }
+
+    @Override
+    public DiagramManifest diagramManifest() {
+        return diagramManifest;
+    }
+
+    @Override
+    public FragmentCache fragmentCache() {
+        return fragmentCache;
+    }
+
+    @Override
+    public ImageRenderQueue imageRenderQueue() {
+        if (imageRenderQueue == null) synchronized (this) {
+            if (imageRenderQueue == null) imageRenderQueue = new ImageRenderQueue(renderBatchSize);
+        }
+        return imageRenderQueue;
+    }
+
     static final class ImageCfg implements ImageConfig {
         String directory = null;
         Collection<String> imageFormats = null;
+        LayoutEngine layoutEngine = LayoutEngine.GRAPHVIZ;
 
         /**
          * Directory where UML images are generated.
@@ -192,6 +345,21 @@ public class DocletConfig implements Configuration {
         public Collection<String> formats() {
             return Optional.ofNullable(imageFormats).orElseGet(() -> singleton("SVG"));
         }
+
+        boolean setLayoutEngine(String engine) {
+            for (LayoutEngine value : LayoutEngine.values()) {
+                if (value.name().equalsIgnoreCase(engine == null ? null : engine.trim())) {
+                    layoutEngine = value;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public LayoutEngine layoutEngine() {
+            return layoutEngine;
+        }
     }
 
     static final class FieldCfg implements FieldConfig {
@@ -22,13 +22,16 @@ import nl.talsmasoftware.umldoclet.logging.Message;
 
 import javax.lang.model.element.Element;
 import javax.tools.Diagnostic;
-import java.text.MessageFormat;
 import java.util.Locale;
+import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Doclet reporter using a specific {@link Locale} to reporte to a delegate {@link Reporter}.
+ * <p>
+ * Neither the delegate reporter nor {@code System.out} can safely be used from multiple threads at once.
+ * Therefore all messages pass through a {@link DiagnosticsFunnel} that delivers them one at a time.
  *
  * @author Sjoerd Talsma
  */
@@ -36,6 +39,7 @@ final class LocalizedReporter implements Reporter, Logger {
     private final DocletConfig config;
     private final Reporter delegate;
     private final Locale locale;
+    private final DiagnosticsFunnel funnel = new DiagnosticsFunnel();
 
     LocalizedReporter(DocletConfig config, Reporter delegate, Locale locale) {
         this.config = requireNonNull(config, "Configuration is <null>.");
@@ -45,28 +49,36 @@ final class LocalizedReporter implements Reporter, Logger {
 
     @Override
     public void debug(Message key, Object... args) {
+        config.eventLog().ifPresent(eventLog -> eventLog.debug(key, args));
         log(Diagnostic.Kind.OTHER, null, null, key, args);
     }
 
     @Override
     public void info(Message key, Object... args) {
+        config.eventLog().ifPresent(eventLog -> eventLog.info(key, args));
         log(Diagnostic.Kind.NOTE, null, null, key, args);
     }
 
     @Override
     public void warn(Message key, Object... args) {
+        config.eventLog().ifPresent(eventLog -> eventLog.warn(key, args));
         log(Diagnostic.Kind.WARNING, null, null, key, args);
     }
 
     @Override
     public void error(Message key, Object... args) {
+        config.eventLog().ifPresent(eventLog -> eventLog.error(key, args));
         log(Diagnostic.Kind.ERROR, null, null, key, args);
     }
 
+    @Override
+    public <T> T grouped(Supplier<T> action) {
+        return funnel.grouped(action);
+    }
+
     private void log(Diagnostic.Kind kind, DocTreePath path, Element elem, Message key, Object... args) {
-        if (mustPrint(kind)) {
-            String message = key.toString(locale);
-            if (args.length > 0) message = MessageFormat.format(message, localize(args));
+        if (mustPrint(kind)) { // Only resolve and format the message if it is actually printed
+            final String message = key.format(locale, localize(args));
             if (path != null) print(kind, path, message);
             else if (elem != null) print(kind, elem, message);
             else print(kind, message);
@@ -89,25 +101,25 @@ final class LocalizedReporter implements Reporter, Logger {
 
     @Override
     public void print(Diagnostic.Kind kind, String msg) {
-        if (mustPrint(kind)) {
+        if (mustPrint(kind)) funnel.report(() -> {
             if (delegate == null) System.out.println(msg);
             else delegate.print(kind, msg);
-        }
+        });
     }
 
     @Override
     public void print(Diagnostic.Kind kind, DocTreePath path, String msg) {
-        if (mustPrint(kind)) {
+        if (mustPrint(kind)) funnel.report(() -> {
             if (delegate == null) System.out.println(msg);
             else delegate.print(kind, path, msg);
-        }
+        });
     }
 
     @Override
     public void print(Diagnostic.Kind kind, Element elem, String msg) {
-        if (mustPrint(kind)) {
+        if (mustPrint(kind)) funnel.report(() -> {
             if (delegate == null) System.out.println(msg);
             else delegate.print(kind, elem, msg);
-        }
+        });
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import nl.talsmasoftware.umldoclet.uml.TypeName;
+import nl.talsmasoftware.umldoclet.uml.Visibility;
+
+import javax.lang.model.element.ElementKind;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable snapshot of a field, enum constant, constructor or method of a {@link TypeSnapshot type}.
+ *
+ * @author Sjoerd Talsma
+ */
+final class MemberSnapshot {
+
+    final ElementKind kind;
+    final Visibility visibility;
+    final boolean isAbstract, isStatic, isDeprecated;
+    final String name;
+    /**
+     * The type of a field or the return type of a method, {@code null} for constructors.
+     */
+    final TypeName type;
+    final List<String> parameterNames;
+    final List<TypeName> parameterTypes;
+    final boolean varargs;
+    /**
+     * Whether this method overrides a method from one of the excluded type references.
+     */
+    final boolean excluded;
+    /**
+     * The property name of a getter or setter method, otherwise {@code null}.
+     */
+    final String propertyName;
+    /**
+     * The referenced type of a field or property, if it is included by the configuration, otherwise {@code null}.
+     */
+    final TypeNameWithCardinality reference;
+
+    MemberSnapshot(ElementKind kind, Visibility visibility, boolean isAbstract, boolean isStatic, boolean isDeprecated,
+                   String name, TypeName type, List<String> parameterNames, List<TypeName> parameterTypes,
+                   boolean varargs, boolean excluded, String propertyName, TypeNameWithCardinality reference) {
+        this.kind = requireNonNull(kind, "Member kind is <null>.");
+        this.visibility = requireNonNull(visibility, "Member visibility is <null>.");
+        this.isAbstract = isAbstract;
+        this.isStatic = isStatic;
+        this.isDeprecated = isDeprecated;
+        this.name = requireNonNull(name, "Member name is <null>.");
+        this.type = type;
+        this.parameterNames = parameterNames.isEmpty() ? emptyList() : unmodifiableList(new ArrayList<>(parameterNames));
+        this.parameterTypes = parameterTypes.isEmpty() ? emptyList() : unmodifiableList(new ArrayList<>(parameterTypes));
+        if (this.parameterNames.size() != this.parameterTypes.size()) {
+            throw new IllegalArgumentException("Parameter names and types differ in number for member \"" + name + "\".");
+        }
+        this.varargs = varargs;
+        this.excluded = excluded;
+        this.propertyName = propertyName;
+        this.reference = reference;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name;
+    }
+
+}
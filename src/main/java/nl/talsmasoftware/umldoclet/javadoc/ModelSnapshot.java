@@ -0,0 +1,429 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import jdk.javadoc.doclet.DocletEnvironment;
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.uml.Type;
+import nl.talsmasoftware.umldoclet.uml.TypeName;
+import nl.talsmasoftware.umldoclet.uml.Visibility;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementKindVisitor9;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static javax.lang.model.element.ElementKind.ENUM;
+
+/**
+ * Immutable snapshot of the javadoc model, containing everything needed to create the UML diagrams.
+ * <p>
+ * The javadoc {@link DocletEnvironment} and its {@link Elements} and {@link Types} utilities are not safe
+ * for concurrent use. Therefore all included types and packages are extracted in a single pass,
+ * after which the diagrams can be created (and rendered) concurrently from this snapshot.
+ * <p>
+ * Besides the included types, the snapshot also contains the types they are related to
+ * (superclass, interfaces, enclosing and inner types), because these are shown in the diagrams as well.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class ModelSnapshot {
+
+    private final Map<String, TypeSnapshot> types;
+    private final List<TypeSnapshot> includedTypes;
+    private final List<PackageSnapshot> includedPackages;
+    private final TypeGraph typeGraph;
+
+    private ModelSnapshot(Map<String, TypeSnapshot> types,
+                          List<TypeSnapshot> includedTypes,
+                          List<PackageSnapshot> includedPackages) {
+        this.types = unmodifiableMap(new LinkedHashMap<>(types));
+        this.includedTypes = unmodifiableList(new ArrayList<>(includedTypes));
+        this.includedPackages = unmodifiableList(new ArrayList<>(includedPackages));
+        this.typeGraph = new TypeGraph(this.types.values());
+    }
+
+    /**
+     * Takes a snapshot of the included elements of the doclet environment.
+     * <p>
+     * This must be called from a single thread, as the javadoc model is accessed.
+     *
+     * @param config The configuration (required).
+     * @param env    The doclet environment to take the snapshot from (required).
+     * @return The snapshot of the included types and packages.
+     */
+    public static ModelSnapshot of(Configuration config, DocletEnvironment env) {
+        requireNonNull(env, "Doclet environment is <null>.");
+        return new Extractor(config, env.getElementUtils(), env.getTypeUtils()).extract(env.getIncludedElements());
+    }
+
+    /**
+     * @return The included classes and interfaces, in the order of the included elements.
+     */
+    public List<TypeSnapshot> includedTypes() {
+        return includedTypes;
+    }
+
+    /**
+     * @return The included packages, in the order of the included elements.
+     */
+    public List<PackageSnapshot> includedPackages() {
+        return includedPackages;
+    }
+
+    /**
+     * Looks up a type by its qualified name.
+     *
+     * @param qualifiedName The qualified name the type was referred to by.
+     * @return The type snapshot, or {@code empty} if it was not part of the snapshot.
+     */
+    Optional<TypeSnapshot> type(String qualifiedName) {
+        return Optional.ofNullable(types.get(qualifiedName));
+    }
+
+    /**
+     * @return The graph of the relationships between all types in this snapshot.
+     */
+    TypeGraph typeGraph() {
+        return typeGraph;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{types=" + includedTypes.size() + ", packages=" + includedPackages.size() + '}';
+    }
+
+    static Visibility visibilityOf(Set<Modifier> modifiers) {
+        return modifiers.contains(Modifier.PRIVATE) ? Visibility.PRIVATE
+                : modifiers.contains(Modifier.PROTECTED) ? Visibility.PROTECTED
+                : modifiers.contains(Modifier.PUBLIC) ? Visibility.PUBLIC
+                : Visibility.PACKAGE_PRIVATE;
+    }
+
+    /**
+     * Single-threaded extraction of the snapshot from the javadoc model.
+     */
+    private static final class Extractor {
+        private final Configuration config;
+        private final Elements elementUtils;
+        private final Types typeUtils;
+        private final Function<TypeMirror, TypeNameWithCardinality> typeNameWithCardinality;
+        private final Collection<ExecutableElement> methodsFromExcludedSuperclasses;
+        private final Map<String, TypeSnapshot> types = new LinkedHashMap<>();
+        private final Map<TypeElement, List<TypeElement>> scannedInnerTypes = new IdentityHashMap<>();
+
+        private Extractor(Configuration config, Elements elementUtils, Types typeUtils) {
+            this.config = requireNonNull(config, "Configuration is <null>.");
+            this.elementUtils = requireNonNull(elementUtils, "Element utils are <null>.");
+            this.typeUtils = requireNonNull(typeUtils, "Type utils are <null>.");
+            this.typeNameWithCardinality = TypeNameWithCardinality.function(
+                    typeUtils, config.optionalTypes(), config.collectionTypes());
+            this.methodsFromExcludedSuperclasses = config.excludedTypeReferences().stream()
+                    .map(elementUtils::getTypeElement).filter(Objects::nonNull)
+                    .map(TypeElement::getEnclosedElements).flatMap(Collection::stream)
+                    .filter(elem -> ElementKind.METHOD.equals(elem.getKind()))
+                    .filter(ExecutableElement.class::isInstance).map(ExecutableElement.class::cast)
+                    .filter(method -> !method.getModifiers().contains(Modifier.ABSTRACT))
+                    .filter(method -> visibilityOf(method.getModifiers()).compareTo(Visibility.PRIVATE) > 0)
+                    .collect(toCollection(LinkedHashSet::new));
+        }
+
+        /**
+         * Separates the included elements into type and package snapshots.
+         *
+         * @param includedElements The included elements of the doclet environment.
+         * @return The model snapshot.
+         */
+        private ModelSnapshot extract(Collection<? extends Element> includedElements) {
+            final List<TypeSnapshot> includedTypes = new ArrayList<>();
+            final List<PackageSnapshot> includedPackages = new ArrayList<>();
+            for (Element element : includedElements) {
+                if (element instanceof PackageElement) {
+                    PackageElement packageElement = (PackageElement) element;
+                    final List<TypeSnapshot> packageTypes = new ArrayList<>();
+                    for (Element packageMember : packageElement.getEnclosedElements()) {
+                        if (packageMember instanceof TypeElement) {
+                            addWithInnerTypes(packageTypes, (TypeElement) packageMember);
+                        }
+                    }
+                    includedPackages.add(new PackageSnapshot(packageElement.getQualifiedName().toString(), packageTypes));
+                } else if (element instanceof TypeElement && (element.getKind().isClass() || element.getKind().isInterface())) {
+                    includedTypes.add(snapshotWithRelatedTypes((TypeElement) element));
+                }
+            }
+            return new ModelSnapshot(types, includedTypes, includedPackages);
+        }
+
+        private void addWithInnerTypes(List<TypeSnapshot> packageTypes, TypeElement typeElement) {
+            packageTypes.add(snapshotWithRelatedTypes(typeElement));
+            for (TypeElement innerType : innerTypesOf(typeElement)) addWithInnerTypes(packageTypes, innerType);
+        }
+
+        private TypeSnapshot snapshotWithRelatedTypes(TypeElement typeElement) {
+            final TypeSnapshot snapshot = snapshot(TypeNameVisitor.INSTANCE.visit(typeElement.asType()), typeElement);
+            if (!TypeKind.NONE.equals(typeElement.getSuperclass().getKind())) {
+                snapshotRelatedType(snapshot.superclass, typeUtils.asElement(typeElement.getSuperclass()));
+            }
+            for (int i = 0; i < snapshot.interfaces.size(); i++) {
+                snapshotRelatedType(snapshot.interfaces.get(i), typeUtils.asElement(typeElement.getInterfaces().get(i)));
+            }
+            if (snapshot.enclosingType != null) {
+                snapshotRelatedType(snapshot.enclosingType, typeElement.getEnclosingElement());
+            }
+            for (TypeElement innerType : innerTypesOf(typeElement)) {
+                snapshot(TypeNameVisitor.INSTANCE.visit(innerType.asType()), innerType);
+            }
+            return snapshot;
+        }
+
+        private void snapshotRelatedType(TypeName referredName, Element element) {
+            if (element instanceof TypeElement && !config.excludedTypeReferences().contains(referredName.qualified)) {
+                snapshot(referredName, (TypeElement) element);
+            }
+        }
+
+        private TypeSnapshot snapshot(TypeName referredName, TypeElement typeElement) {
+            TypeSnapshot snapshot = types.get(referredName.qualified);
+            if (snapshot == null) {
+                snapshot = createSnapshot(typeElement);
+                types.put(referredName.qualified, snapshot);
+            }
+            return snapshot;
+        }
+
+        private List<TypeElement> innerTypesOf(TypeElement typeElement) {
+            List<TypeElement> innerTypes = scannedInnerTypes.get(typeElement);
+            if (innerTypes == null) innerTypes = scan(typeElement).innerTypes;
+            return innerTypes;
+        }
+
+        /**
+         * Classifies all enclosed elements of the type in a single pass.
+         *
+         * @param typeElement The type to scan.
+         * @return The scanned members and inner types.
+         */
+        private EnclosedElementScanner scan(TypeElement typeElement) {
+            final EnclosedElementScanner scanner = new EnclosedElementScanner();
+            for (Element enclosed : typeElement.getEnclosedElements()) scanner.visit(enclosed);
+            scannedInnerTypes.put(typeElement, scanner.innerTypes);
+            return scanner;
+        }
+
+        private TypeSnapshot createSnapshot(TypeElement typeElement) {
+            final EnclosedElementScanner scanned = scan(typeElement);
+            final TypeName superclass = TypeKind.NONE.equals(typeElement.getSuperclass().getKind()) ? null
+                    : TypeNameVisitor.INSTANCE.visit(typeElement.getSuperclass());
+            final List<TypeName> interfaces = typeElement.getInterfaces().stream()
+                    .map(TypeNameVisitor.INSTANCE::visit)
+                    .collect(toList());
+            final Element enclosingElement = typeElement.getEnclosingElement();
+            final TypeName enclosingType = enclosingElement.getKind().isClass() || enclosingElement.getKind().isInterface()
+                    ? TypeNameVisitor.INSTANCE.visit(enclosingElement.asType()) : null;
+            final List<TypeName> innerTypes = new ArrayList<>(scanned.innerTypes.size());
+            for (TypeElement innerType : scanned.innerTypes) innerTypes.add(TypeNameVisitor.INSTANCE.visit(innerType.asType()));
+
+            return new TypeSnapshot(
+                    elementUtils.getPackageOf(typeElement).getQualifiedName().toString(),
+                    typeClassificationOf(typeElement),
+                    TypeNameVisitor.INSTANCE.visit(typeElement.asType()),
+                    elementUtils.isDeprecated(typeElement),
+                    superclass, interfaces, enclosingType, innerTypes, scanned.members);
+        }
+
+        /**
+         * Visitor classifying the enclosed elements of a type into members and inner types,
+         * in order of declaration. Other elements (such as initializers) are ignored.
+         */
+        private final class EnclosedElementScanner extends ElementKindVisitor9<Void, Void> {
+            private final List<MemberSnapshot> members = new ArrayList<>();
+            private final List<TypeElement> innerTypes = new ArrayList<>(0);
+
+            @Override
+            public Void visitVariableAsEnumConstant(VariableElement enumConstant, Void parameter) {
+                members.add(snapshotField(enumConstant));
+                return null;
+            }
+
+            @Override
+            public Void visitVariableAsField(VariableElement field, Void parameter) {
+                members.add(snapshotField(field));
+                return null;
+            }
+
+            @Override
+            public Void visitExecutableAsConstructor(ExecutableElement constructor, Void parameter) {
+                members.add(snapshotExecutable(constructor));
+                return null;
+            }
+
+            @Override
+            public Void visitExecutableAsMethod(ExecutableElement method, Void parameter) {
+                members.add(snapshotExecutable(method));
+                return null;
+            }
+
+            @Override
+            public Void visitType(TypeElement innerType, Void parameter) {
+                innerTypes.add(innerType);
+                return null;
+            }
+        }
+
+        private MemberSnapshot snapshotField(VariableElement variable) {
+            final Set<Modifier> modifiers = variable.getModifiers();
+            final Visibility visibility = visibilityOf(modifiers);
+            final TypeNameWithCardinality reference = ElementKind.FIELD.equals(variable.getKind())
+                    && config.fields().include(visibility) ? typeNameWithCardinality.apply(variable.asType()) : null;
+            return new MemberSnapshot(variable.getKind(), visibility,
+                    false, modifiers.contains(Modifier.STATIC), elementUtils.isDeprecated(variable),
+                    variable.getSimpleName().toString(),
+                    TypeNameVisitor.INSTANCE.visit(variable.asType()),
+                    emptyList(), emptyList(), false, false, null, reference);
+        }
+
+        private MemberSnapshot snapshotExecutable(ExecutableElement executable) {
+            final Set<Modifier> modifiers = executable.getModifiers();
+            final Visibility visibility = visibilityOf(modifiers);
+            final boolean isMethod = ElementKind.METHOD.equals(executable.getKind());
+            final List<? extends VariableElement> params = executable.getParameters();
+            final List<String> parameterNames = new ArrayList<>(params.size());
+            final List<TypeName> parameterTypes = new ArrayList<>(params.size());
+            for (VariableElement param : params) {
+                parameterNames.add(param.getSimpleName().toString());
+                parameterTypes.add(TypeNameVisitor.INSTANCE.visit(param.asType()));
+            }
+            final String propertyName = isMethod ? propertyName(executable) : null;
+            final TypeNameWithCardinality reference = propertyName != null && config.methods().include(visibility)
+                    ? typeNameWithCardinality.apply(propertyType(executable)) : null;
+            return new MemberSnapshot(executable.getKind(), visibility,
+                    modifiers.contains(Modifier.ABSTRACT), modifiers.contains(Modifier.STATIC),
+                    elementUtils.isDeprecated(executable),
+                    executable.getSimpleName().toString(),
+                    isMethod ? TypeNameVisitor.INSTANCE.visit(executable.getReturnType()) : null,
+                    parameterNames, parameterTypes, executable.isVarArgs(),
+                    isMethod && isMethodFromExcludedSuperclass(executable),
+                    propertyName, reference);
+        }
+
+        private static Type.Classification typeClassificationOf(TypeElement type) {
+            ElementKind kind = type.getKind();
+            Set<Modifier> modifiers = type.getModifiers();
+            return ENUM.equals(kind) ? Type.Classification.ENUM
+                    : ElementKind.INTERFACE.equals(kind) ? Type.Classification.INTERFACE
+                    : ElementKind.ANNOTATION_TYPE.equals(kind) ? Type.Classification.ANNOTATION
+                    : modifiers.contains(Modifier.ABSTRACT) ? Type.Classification.ABSTRACT_CLASS
+                    : Type.Classification.CLASS;
+        }
+
+        private boolean isMethodFromExcludedSuperclass(ExecutableElement method) {
+            boolean result = false;
+            Element containingClass = method.getEnclosingElement();
+            if (containingClass.getKind().isClass() || containingClass.getKind().isInterface()) {
+                result = methodsFromExcludedSuperclasses.stream().anyMatch(
+                        m -> similarMethodSignatures(m, method)
+                                && typeUtils.isAssignable(containingClass.asType(), m.getEnclosingElement().asType()));
+            }
+            result = result || isExcludedEnumMethod(method);
+            return result;
+        }
+
+        private boolean isExcludedEnumMethod(ExecutableElement method) {
+            if (config.excludedTypeReferences().contains(Enum.class.getName())
+                    && ElementKind.ENUM.equals(method.getEnclosingElement().getKind())
+                    && method.getModifiers().contains(Modifier.STATIC)) {
+                if ("values".equals(method.getSimpleName().toString()) && method.getParameters().isEmpty()) {
+                    return true;
+                } else if ("valueOf".equals(method.getSimpleName().toString()) && method.getParameters().size() == 1) {
+                    String paramType = TypeNameVisitor.INSTANCE.visit(method.getParameters().get(0).asType()).qualified;
+                    return String.class.getName().equals(paramType);
+                }
+            }
+            return false;
+        }
+
+        private boolean similarMethodSignatures(ExecutableElement method1, ExecutableElement method2) {
+            if (!method1.getSimpleName().equals(method2.getSimpleName())) return false;
+            int paramCount = method1.getParameters().size();
+            if (paramCount != method2.getParameters().size()) return false;
+
+            boolean assignable1 = true, assignable2 = true;
+            for (int i = 0; i < paramCount && (assignable1 || assignable2); i++) {
+                TypeMirror param1 = method1.getParameters().get(i).asType();
+                TypeMirror param2 = method2.getParameters().get(i).asType();
+                assignable1 = assignable1 && typeUtils.isAssignable(param1, param2);
+                assignable2 = assignable2 && typeUtils.isAssignable(param2, param1);
+            }
+            return assignable1 || assignable2;
+        }
+
+        private static String propertyName(ExecutableElement method) {
+            String name = method.getSimpleName().toString();
+            int params = method.getParameters().size();
+            if (params == 0 && name.length() > 3 && name.startsWith("get")) {
+                char[] result = name.substring(3).toCharArray();
+                result[0] = Character.toLowerCase(result[0]);
+                return new String(result);
+            } else if (params == 1 && name.length() > 3 && name.startsWith("set")) {
+                char[] result = name.substring(3).toCharArray();
+                result[0] = Character.toLowerCase(result[0]);
+                return new String(result);
+            } else if (params == 0 && name.length() > 2 && name.startsWith("is") && isBooleanPrimitive(method.getReturnType())) {
+                char[] result = name.substring(2).toCharArray();
+                result[0] = Character.toLowerCase(result[0]);
+                return new String(result);
+            }
+            return null;
+        }
+
+        private static TypeMirror propertyType(ExecutableElement method) {
+            if (method.getSimpleName().toString().startsWith("set") && !method.getParameters().isEmpty()) {
+                return method.getParameters().get(0).asType();
+            }
+            return method.getReturnType();
+        }
+
+        private static boolean isBooleanPrimitive(TypeMirror type) {
+            return "boolean".equals(TypeNameVisitor.INSTANCE.visit(type).qualified);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable snapshot of a package from the javadoc model,
+ * containing all its types (including inner types) in the order they were declared.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class PackageSnapshot {
+
+    final String name;
+    final List<TypeSnapshot> types;
+
+    PackageSnapshot(String name, Collection<TypeSnapshot> types) {
+        this.name = requireNonNull(name, "Package name is <null>.");
+        this.types = unmodifiableList(new ArrayList<>(types));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + name + '}';
+    }
+
+}
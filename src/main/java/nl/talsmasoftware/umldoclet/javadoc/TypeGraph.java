@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import nl.talsmasoftware.umldoclet.uml.TypeName;
+
+import javax.lang.model.element.ElementKind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Run-wide graph of the relationships between all types in a {@link ModelSnapshot}.
+ * <p>
+ * Every qualified type name gets an {@code int} node id.
+ * The {@code extends}, {@code implements}, inner type and {@code uses} relationships are stored as
+ * primitive adjacency arrays, so diagrams can query the relationships of a type
+ * without rediscovering them from the type members.
+ * The graph also keeps the reverse {@code extends} and {@code implements} edges to find the known subtypes
+ * and supports expanding the {@code uses} neighbourhood of a type over multiple hops.
+ * <p>
+ * The graph is immutable and therefore safe to share between concurrently created diagrams.
+ *
+ * @author Sjoerd Talsma
+ */
+final class TypeGraph {
+    /**
+     * Node id for an unknown type or absent relationship.
+     */
+    static final int NONE = -1;
+
+    private final Map<String, Integer> ids;
+    private final TypeName[] names;
+    private final int[] superclass, enclosingType;
+    private final Adjacency interfaces, innerTypes, subtypes, uses;
+    private final String[] useNames, useCardinalities, useMembers;
+    private final boolean[] fieldUses;
+
+    TypeGraph(Collection<TypeSnapshot> types) {
+        final Map<String, TypeSnapshot> sources = new LinkedHashMap<>();
+        requireNonNull(types, "Types are <null>.").forEach(type -> sources.putIfAbsent(type.name.qualified, type));
+
+        final Map<String, Integer> nodeIds = new HashMap<>();
+        final List<TypeName> nodeNames = new ArrayList<>();
+        sources.values().forEach(type -> node(type.name, nodeIds, nodeNames));
+        for (TypeSnapshot type : sources.values()) {
+            if (type.superclass != null) node(type.superclass, nodeIds, nodeNames);
+            type.interfaces.forEach(ifName -> node(ifName, nodeIds, nodeNames));
+            if (type.enclosingType != null) node(type.enclosingType, nodeIds, nodeNames);
+            type.innerTypes.forEach(innerType -> node(innerType, nodeIds, nodeNames));
+            for (List<MemberSnapshot> members : asList(type.fields, type.methods)) {
+                for (MemberSnapshot member : members) {
+                    if (member.reference != null) node(member.reference.typeName, nodeIds, nodeNames);
+                }
+            }
+        }
+
+        final int nodeCount = nodeNames.size();
+        this.ids = nodeIds;
+        this.names = nodeNames.toArray(new TypeName[nodeCount]);
+        this.superclass = new int[nodeCount];
+        this.enclosingType = new int[nodeCount];
+        Arrays.fill(superclass, NONE);
+        Arrays.fill(enclosingType, NONE);
+
+        final Adjacency.Builder interfaceEdges = new Adjacency.Builder(nodeCount);
+        final Adjacency.Builder innerTypeEdges = new Adjacency.Builder(nodeCount);
+        final Adjacency.Builder subtypeEdges = new Adjacency.Builder(nodeCount);
+        final Adjacency.Builder useEdges = new Adjacency.Builder(nodeCount);
+        final List<MemberSnapshot> useMemberList = new ArrayList<>();
+        for (TypeSnapshot type : sources.values()) {
+            final int node = nodeIds.get(type.name.qualified);
+            if (type.superclass != null) {
+                superclass[node] = nodeIds.get(type.superclass.qualified);
+                subtypeEdges.add(superclass[node], node);
+            }
+            for (TypeName ifName : type.interfaces) {
+                final int target = nodeIds.get(ifName.qualified);
+                interfaceEdges.add(node, target);
+                subtypeEdges.add(target, node);
+            }
+            if (type.enclosingType != null) enclosingType[node] = nodeIds.get(type.enclosingType.qualified);
+            type.innerTypes.forEach(innerType -> innerTypeEdges.add(node, nodeIds.get(innerType.qualified)));
+
+            // Field references first, followed by property references, both in order of declaration.
+            for (List<MemberSnapshot> members : asList(type.fields, type.methods)) {
+                for (MemberSnapshot member : members) {
+                    if (member.reference != null) {
+                        useEdges.add(node, nodeIds.get(member.reference.typeName.qualified));
+                        useMemberList.add(member);
+                    }
+                }
+            }
+        }
+        this.interfaces = interfaceEdges.build();
+        this.innerTypes = innerTypeEdges.build();
+        this.subtypes = subtypeEdges.build();
+        this.uses = useEdges.build();
+
+        // Edge attributes, in the (sorted) order of the uses adjacency.
+        final int useCount = useMemberList.size();
+        this.useNames = new String[useCount];
+        this.useCardinalities = new String[useCount];
+        this.useMembers = new String[useCount];
+        this.fieldUses = new boolean[useCount];
+        for (int i = 0; i < useCount; i++) {
+            final MemberSnapshot member = useMemberList.get(i);
+            final int edge = uses.edgeOf[i];
+            fieldUses[edge] = ElementKind.FIELD.equals(member.kind);
+            useNames[edge] = fieldUses[edge] ? member.name : member.propertyName;
+            useCardinalities[edge] = member.reference.cardinality;
+            useMembers[edge] = member.name;
+        }
+    }
+
+    private static void node(TypeName name, Map<String, Integer> ids, List<TypeName> names) {
+        if (!ids.containsKey(name.qualified)) {
+            ids.put(name.qualified, names.size());
+            names.add(name);
+        }
+    }
+
+    /**
+     * @return The number of nodes in the graph.
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * @param qualifiedName The qualified name of the type.
+     * @return The node id of the type or {@link #NONE} if the type is not part of the graph.
+     */
+    int id(String qualifiedName) {
+        Integer id = ids.get(qualifiedName);
+        return id == null ? NONE : id;
+    }
+
+    /**
+     * @param node The node id.
+     * @return The type name of the node.
+     */
+    TypeName typeName(int node) {
+        return names[node];
+    }
+
+    /**
+     * @param node The node id.
+     * @return The superclass of the type or {@link #NONE}.
+     */
+    int superclass(int node) {
+        return superclass[node];
+    }
+
+    /**
+     * @param node The node id.
+     * @return The enclosing type of the type or {@link #NONE} for top-level types.
+     */
+    int enclosingType(int node) {
+        return enclosingType[node];
+    }
+
+    /**
+     * @param node The node id.
+     * @return The interfaces implemented by the type, in order of declaration.
+     */
+    int[] interfaces(int node) {
+        return interfaces.targets(node);
+    }
+
+    /**
+     * @param node The node id.
+     * @return The inner types declared by the type, in order of declaration.
+     */
+    int[] innerTypes(int node) {
+        return innerTypes.targets(node);
+    }
+
+    /**
+     * @param node The node id.
+     * @return The known types directly extending or implementing the type.
+     */
+    int[] knownSubtypes(int node) {
+        return subtypes.targets(node);
+    }
+
+    /**
+     * The {@code uses} edges of a type are numbered from {@link #firstUse(int)} up to (excluding)
+     * {@link #endOfUses(int)}: first the field references, then the property references.
+     *
+     * @param node The node id.
+     * @return The first {@code uses} edge of the type.
+     */
+    int firstUse(int node) {
+        return uses.offsets[node];
+    }
+
+    /**
+     * @param node The node id.
+     * @return The end (exclusive) of the {@code uses} edges of the type.
+     */
+    int endOfUses(int node) {
+        return uses.offsets[node + 1];
+    }
+
+    /**
+     * @param edge The {@code uses} edge.
+     * @return The node of the referenced type.
+     */
+    int useTarget(int edge) {
+        return uses.targets[edge];
+    }
+
+    /**
+     * @param edge The {@code uses} edge.
+     * @return The name of the reference (the field or property name).
+     */
+    String useName(int edge) {
+        return useNames[edge];
+    }
+
+    /**
+     * @param edge The {@code uses} edge.
+     * @return The cardinality of the reference, or {@code null} if it is a single reference.
+     */
+    String useCardinality(int edge) {
+        return useCardinalities[edge];
+    }
+
+    /**
+     * @param edge The {@code uses} edge.
+     * @return The name of the field or method member that the reference was derived from.
+     */
+    String useMember(int edge) {
+        return useMembers[edge];
+    }
+
+    /**
+     * @param edge The {@code uses} edge.
+     * @return Whether the reference was derived from a field ({@code true}) or a property method ({@code false}).
+     */
+    boolean isFieldUse(int edge) {
+        return fieldUses[edge];
+    }
+
+    /**
+     * Expands the {@code uses} neighbourhood of a type.
+     *
+     * @param node The node id.
+     * @param hops The maximum number of {@code uses} edges to follow.
+     * @return The nodes that are used within the specified number of hops (excluding the node itself).
+     */
+    BitSet usages(int node, int hops) {
+        final BitSet visited = new BitSet(names.length);
+        visited.set(node);
+        BitSet frontier = new BitSet(names.length);
+        frontier.set(node);
+        for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++) {
+            final BitSet next = new BitSet(names.length);
+            for (int from = frontier.nextSetBit(0); from >= 0; from = frontier.nextSetBit(from + 1)) {
+                for (int edge = firstUse(from); edge < endOfUses(from); edge++) {
+                    if (!visited.get(useTarget(edge))) next.set(useTarget(edge));
+                }
+            }
+            visited.or(next);
+            frontier = next;
+        }
+        visited.clear(node);
+        return visited;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{nodes=" + names.length + ", uses=" + uses.targets.length + '}';
+    }
+
+    /**
+     * Compressed adjacency: the targets of node {@code n} are {@code targets[offsets[n]..offsets[n+1]]}.
+     */
+    private static final class Adjacency {
+        private final int[] offsets, targets;
+        /**
+         * Maps the order in which the edges were added to their position in the targets array.
+         */
+        private final int[] edgeOf;
+
+        private Adjacency(int[] offsets, int[] targets, int[] edgeOf) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.edgeOf = edgeOf;
+        }
+
+        private int[] targets(int node) {
+            return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+        }
+
+        private static final class Builder {
+            private final int nodeCount;
+            private int[] from = new int[16], to = new int[16];
+            private int size = 0;
+
+            private Builder(int nodeCount) {
+                this.nodeCount = nodeCount;
+            }
+
+            private void add(int source, int target) {
+                if (size == from.length) {
+                    from = Arrays.copyOf(from, size * 2);
+                    to = Arrays.copyOf(to, size * 2);
+                }
+                from[size] = source;
+                to[size++] = target;
+            }
+
+            private Adjacency build() {
+                final int[] offsets = new int[nodeCount + 1];
+                for (int i = 0; i < size; i++) offsets[from[i] + 1]++;
+                for (int n = 0; n < nodeCount; n++) offsets[n + 1] += offsets[n];
+                final int[] targets = new int[size];
+                final int[] edgeOf = new int[size];
+                final int[] next = Arrays.copyOf(offsets, nodeCount);
+                for (int i = 0; i < size; i++) {
+                    edgeOf[i] = next[from[i]]++;
+                    targets[edgeOf[i]] = to[i];
+                }
+                return new Adjacency(offsets, targets, edgeOf);
+            }
+        }
+    }
+
+}
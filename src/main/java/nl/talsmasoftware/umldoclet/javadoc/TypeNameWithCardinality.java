@@ -17,9 +17,13 @@ package nl.talsmasoftware.umldoclet.javadoc;
 
 import nl.talsmasoftware.umldoclet.uml.TypeName;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
 import javax.lang.model.util.Types;
 import java.util.*;
 import java.util.function.Function;
@@ -37,7 +41,7 @@ final class TypeNameWithCardinality {
     final TypeName typeName;
     final String cardinality;
 
-    private TypeNameWithCardinality(TypeName typeName, String cardinality) {
+    TypeNameWithCardinality(TypeName typeName, String cardinality) {
         this.typeName = typeName;
         this.cardinality = cardinality;
     }
@@ -45,50 +49,146 @@ final class TypeNameWithCardinality {
     /**
      * Returns a function that applies the TypeNameVisitor, but also:
      * <ol>
-     * <li>Checks if a type is an {@code Array}, {@code Iterable} or {@code Stream} to return the type argument with cardinality {@code "*"}</li>
-     * <li>Checks if a type is a Java 8 or Guava {@code Optional} object to return the type argument with cardinality {@code "0..1"}</li>
+     * <li>Checks if a type is an {@code Array} or one of the {@code collectionTypes}
+     * (e.g. {@code Iterable} or {@code Stream}) to return the type argument with cardinality {@code "*"}</li>
+     * <li>Checks if a type is one of the {@code optionalTypes} (e.g. Java 8 or Guava {@code Optional})
+     * to return the type argument with cardinality {@code "0..1"}</li>
      * <li>Otherwise, the name of the actual type is returned with cardinality {@code null}</li>
      * </ol>
+     * <p>
+     * Which container (if any) a declared type derives from is resolved once per erased type and cached
+     * by the returned function; only the type argument is extracted for each call.
+     * The function is therefore meant to be used for a single doclet run, from a single thread.
      *
-     * @param typeUtils The type utils to use for supertype introspection (required).
+     * @param typeUtils       The type utils to use for supertype introspection (required).
+     * @param optionalTypes   The qualified names of container types with cardinality {@code "0..1"}.
+     * @param collectionTypes The qualified names of container types with cardinality {@code "*"}.
      * @return The function to return TypeName with cardinality for use in same-package references.
      */
-    static Function<TypeMirror, TypeNameWithCardinality> function(final Types typeUtils) {
-        requireNonNull(typeUtils, "Type utils are <null>.");
-        return type -> {
+    static Function<TypeMirror, TypeNameWithCardinality> function(
+            final Types typeUtils, Collection<String> optionalTypes, Collection<String> collectionTypes) {
+        return new CardinalityResolver(typeUtils, optionalTypes, collectionTypes);
+    }
+
+    /**
+     * How the cardinality of a (erased) declared type is resolved:
+     * <ul>
+     * <li>{@code cardinality == null}: the type is not derived from a container type,</li>
+     * <li>{@code argumentIndex >= 0}: the container's type argument is the declared type's own type argument
+     * at that index,</li>
+     * <li>{@code fixedArgument != null}: the container's type argument is fixed in the type declaration,</li>
+     * <li>otherwise the supertypes of the actual type need to be searched for the type argument.</li>
+     * </ul>
+     */
+    private static final class Resolution {
+        private static final Resolution NONE = new Resolution(null, -1, null);
+
+        private final String cardinality;
+        private final int argumentIndex;
+        private final TypeName fixedArgument;
+
+        private Resolution(String cardinality, int argumentIndex, TypeName fixedArgument) {
+            this.cardinality = cardinality;
+            this.argumentIndex = argumentIndex;
+            this.fixedArgument = fixedArgument;
+        }
+    }
+
+    private static final class CardinalityResolver implements Function<TypeMirror, TypeNameWithCardinality> {
+        private final Types typeUtils;
+        private final Set<String> optionalTypes, collectionTypes;
+        private final Map<String, Resolution> cache = new HashMap<>();
+
+        private CardinalityResolver(Types typeUtils, Collection<String> optionalTypes, Collection<String> collectionTypes) {
+            this.typeUtils = requireNonNull(typeUtils, "Type utils are <null>.");
+            this.optionalTypes = new HashSet<>(requireNonNull(optionalTypes, "Optional types are <null>."));
+            this.collectionTypes = new HashSet<>(requireNonNull(collectionTypes, "Collection types are <null>."));
+        }
+
+        @Override
+        public TypeNameWithCardinality apply(TypeMirror type) {
             if (type instanceof ArrayType) {
                 TypeName componentName = TypeNameVisitor.INSTANCE.visit(((ArrayType) type).getComponentType());
                 return new TypeNameWithCardinality(componentName, "*");
-            } else if (type instanceof DeclaredType) {
-                Queue<TypeMirror> superTypes = new LinkedList<>(singleton(type));
-                Set<String> checkedTypes = new HashSet<>();
-                while (!superTypes.isEmpty()) {
-                    TypeMirror superType = superTypes.poll();
-                    String qName = TypeNameVisitor.INSTANCE.visit(superType).qualified;
-                    if (checkedTypes.add(qName)) { // Don't reiterate
-                        String cardinality = null;
-                        if ("java.util.Optional".equals(qName) || "com.google.common.base.Optional".equals(qName)) {
-                            cardinality = "0..1";
-                        } else if ("java.lang.Iterable".equals(qName) || "java.util.stream.Stream".equals(qName)) {
-                            cardinality = "*";
-                        }
-
-                        // Assumption: the 'iterable' and 'optional' types are DeclaredTypes with a single TypeArgument.
-                        Optional<TypeName> typeArgument = Optional.ofNullable(cardinality)
-                                .map(c -> superType instanceof DeclaredType ? (DeclaredType) superType : null)
-                                .map(DeclaredType::getTypeArguments)
-                                .map(args -> args.size() == 1 ? args.get(0) : null)
-                                .map(TypeNameVisitor.INSTANCE::visit);
-                        if (typeArgument.isPresent()) {
-                            return new TypeNameWithCardinality(typeArgument.get(), cardinality);
-                        }
-
-                        superTypes.addAll(typeUtils.directSupertypes(superType));
+            } else if (type instanceof DeclaredType && ((DeclaredType) type).asElement() instanceof TypeElement) {
+                final DeclaredType declaredType = (DeclaredType) type;
+                final TypeElement typeElement = (TypeElement) declaredType.asElement();
+                final Resolution resolution = cache.computeIfAbsent(
+                        typeElement.getQualifiedName().toString(), name -> resolve(typeElement));
+                if (resolution.cardinality != null) {
+                    final List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+                    if (resolution.fixedArgument != null) {
+                        return new TypeNameWithCardinality(resolution.fixedArgument, resolution.cardinality);
+                    } else if (resolution.argumentIndex >= 0 && resolution.argumentIndex < typeArguments.size()) {
+                        TypeName typeArgument = TypeNameVisitor.INSTANCE.visit(typeArguments.get(resolution.argumentIndex));
+                        return new TypeNameWithCardinality(typeArgument, resolution.cardinality);
                     }
+                    return searchSupertypes(type);
                 }
+            } else if (type instanceof DeclaredType) {
+                return searchSupertypes(type);
             }
 
             return new TypeNameWithCardinality(TypeNameVisitor.INSTANCE.visit(type), null);
-        };
+        }
+
+        /**
+         * Resolves the container type argument on the generic declaration of the type.
+         *
+         * @param typeElement The type element to resolve.
+         * @return How to determine the cardinality for the declared type.
+         */
+        private Resolution resolve(TypeElement typeElement) {
+            final Optional<Map.Entry<String, DeclaredType>> container = findContainer(typeElement.asType());
+            if (!container.isPresent()) return Resolution.NONE;
+            final String cardinality = container.get().getKey();
+            final TypeMirror typeArgument = container.get().getValue().getTypeArguments().get(0);
+            if (typeArgument instanceof TypeVariable) {
+                final Element variable = ((TypeVariable) typeArgument).asElement();
+                final int index = typeElement.getTypeParameters().indexOf(variable);
+                return new Resolution(cardinality, index, null);
+            } else if (TypeKind.DECLARED.equals(typeArgument.getKind())
+                    && ((DeclaredType) typeArgument).getTypeArguments().isEmpty()) {
+                return new Resolution(cardinality, -1, TypeNameVisitor.INSTANCE.visit(typeArgument));
+            }
+            return new Resolution(cardinality, -1, null);
+        }
+
+        private TypeNameWithCardinality searchSupertypes(TypeMirror type) {
+            return findContainer(type)
+                    .map(container -> new TypeNameWithCardinality(
+                            TypeNameVisitor.INSTANCE.visit(container.getValue().getTypeArguments().get(0)),
+                            container.getKey()))
+                    .orElseGet(() -> new TypeNameWithCardinality(TypeNameVisitor.INSTANCE.visit(type), null));
+        }
+
+        /**
+         * Breadth-first search of the type and its supertypes for the first container type with a single type argument.
+         *
+         * @param type The type to search.
+         * @return The cardinality and the (parameterized) container type, if found.
+         */
+        private Optional<Map.Entry<String, DeclaredType>> findContainer(TypeMirror type) {
+            Queue<TypeMirror> superTypes = new ArrayDeque<>(singleton(type));
+            Set<String> checkedTypes = new HashSet<>();
+            while (!superTypes.isEmpty()) {
+                TypeMirror superType = superTypes.poll();
+                String qName = TypeNameVisitor.INSTANCE.visit(superType).qualified;
+                if (checkedTypes.add(qName)) { // Don't reiterate
+                    String cardinality = optionalTypes.contains(qName) ? "0..1"
+                            : collectionTypes.contains(qName) ? "*"
+                            : null;
+
+                    // Assumption: the 'iterable' and 'optional' types are DeclaredTypes with a single TypeArgument.
+                    if (cardinality != null && superType instanceof DeclaredType
+                            && ((DeclaredType) superType).getTypeArguments().size() == 1) {
+                        return Optional.of(new AbstractMap.SimpleImmutableEntry<>(cardinality, (DeclaredType) superType));
+                    }
+
+                    superTypes.addAll(typeUtils.directSupertypes(superType));
+                }
+            }
+            return Optional.empty();
+        }
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import nl.talsmasoftware.umldoclet.uml.Type;
+import nl.talsmasoftware.umldoclet.uml.TypeName;
+
+import javax.lang.model.element.ElementKind;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable snapshot of a single type from the javadoc model.
+ * <p>
+ * All information needed to produce UML for the type is extracted up-front,
+ * so diagrams can be created without touching the (non thread-safe) javadoc elements.
+ * Related types (superclass, interfaces, enclosing and inner types) are referred to by name
+ * and can be looked up in the {@link ModelSnapshot}.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class TypeSnapshot {
+
+    final String packageName;
+    final Type.Classification classification;
+    final TypeName name;
+    final boolean isDeprecated;
+    /**
+     * The name of the superclass, or {@code null} if the type has none.
+     */
+    final TypeName superclass;
+    final List<TypeName> interfaces;
+    /**
+     * The name of the enclosing class or interface, or {@code null} for top-level types.
+     */
+    final TypeName enclosingType;
+    final List<TypeName> innerTypes;
+    /**
+     * The members, grouped by kind and in order of declaration within each kind.
+     */
+    final List<MemberSnapshot> enumConstants, fields, constructors, methods;
+
+    TypeSnapshot(String packageName, Type.Classification classification, TypeName name, boolean isDeprecated,
+                 TypeName superclass, Collection<TypeName> interfaces, TypeName enclosingType,
+                 Collection<TypeName> innerTypes, Collection<MemberSnapshot> members) {
+        this.packageName = requireNonNull(packageName, "Package name is <null>.");
+        this.classification = requireNonNull(classification, "Type classification is <null>.");
+        this.name = requireNonNull(name, "Type name is <null>.");
+        this.isDeprecated = isDeprecated;
+        this.superclass = superclass;
+        this.interfaces = unmodifiableList(new ArrayList<>(interfaces));
+        this.enclosingType = enclosingType;
+        this.innerTypes = unmodifiableList(new ArrayList<>(innerTypes));
+        final List<MemberSnapshot> enumConstants = new ArrayList<>(0), fields = new ArrayList<>(),
+                constructors = new ArrayList<>(), methods = new ArrayList<>();
+        for (MemberSnapshot member : members) {
+            if (ElementKind.ENUM_CONSTANT.equals(member.kind)) enumConstants.add(member);
+            else if (ElementKind.FIELD.equals(member.kind)) fields.add(member);
+            else if (ElementKind.CONSTRUCTOR.equals(member.kind)) constructors.add(member);
+            else if (ElementKind.METHOD.equals(member.kind)) methods.add(member);
+        }
+        this.enumConstants = unmodifiableList(enumConstants);
+        this.fields = unmodifiableList(fields);
+        this.constructors = unmodifiableList(constructors);
+        this.methods = unmodifiableList(methods);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + name.qualified + '}';
+    }
+
+}
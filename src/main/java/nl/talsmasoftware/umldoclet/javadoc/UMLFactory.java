@@ -15,33 +15,20 @@
  */
 package nl.talsmasoftware.umldoclet.javadoc;
 
-import jdk.javadoc.doclet.DocletEnvironment;
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
 import nl.talsmasoftware.umldoclet.uml.*;
 
-import javax.lang.model.element.Element;
-import javax.lang.model.element.ElementKind;
-import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.Modifier;
-import javax.lang.model.element.PackageElement;
-import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.TypeKind;
-import javax.lang.model.type.TypeMirror;
-import javax.lang.model.util.Types;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toCollection;
-import static java.util.stream.Collectors.toList;
-import static javax.lang.model.element.ElementKind.ENUM;
 import static nl.talsmasoftware.umldoclet.uml.Reference.Side.from;
 import static nl.talsmasoftware.umldoclet.uml.Reference.Side.to;
 
 /**
- * One big factory to produce UML from analyzed Javadoc elements.
+ * One big factory to produce UML from a {@link ModelSnapshot snapshot} of the analyzed Javadoc elements.
+ * <p>
+ * Since the factory does not access the javadoc model itself, diagrams can be created concurrently.
  * <p>
  * TODO: This should be refactored into ClassDiagram and PackageDiagram visitor implementations.
  * This increases flexibility in supporting future language features however may introduce additional risk
@@ -54,31 +41,34 @@ public class UMLFactory {
 
     final Configuration config;
     final ThreadLocal<UMLDiagram> diagram = new ThreadLocal<>();
-    private final DocletEnvironment env;
-    private final Function<TypeMirror, TypeNameWithCardinality> typeNameWithCardinality;
+    private final ModelSnapshot model;
+    private final TypeGraph graph;
 
-    public UMLFactory(Configuration config, DocletEnvironment env) {
+    public UMLFactory(Configuration config, ModelSnapshot model) {
         this.config = requireNonNull(config, "Configuration is <null>.");
-        this.env = requireNonNull(env, "Doclet environment is <null>.");
-        this.typeNameWithCardinality = TypeNameWithCardinality.function(env.getTypeUtils());
+        this.model = requireNonNull(model, "Model snapshot is <null>.");
+        this.graph = model.typeGraph();
     }
 
-    public UMLDiagram createClassDiagram(TypeElement classElement) {
-        Type type = createAndPopulateType(null, classElement);
+    public UMLDiagram createClassDiagram(TypeSnapshot classType) {
+        Type type = createAndPopulateType(null, classType);
         ClassDiagram classDiagram = new ClassDiagram(config, type);
 
         List<Reference> references = new ArrayList<>();
         Literal sep = Literal.NEWLINE;
 
+        final int node = graph.id(type.name.qualified);
+
         // Add superclass
-        if (!TypeKind.NONE.equals(classElement.getSuperclass().getKind())) {
-            String superclassName = TypeNameVisitor.INSTANCE.visit(classElement.getSuperclass()).qualified;
+        final int superclass = graph.superclass(node);
+        if (superclass != TypeGraph.NONE) {
+            String superclassName = graph.typeName(superclass).qualified;
             if (!config.excludedTypeReferences().contains(superclassName)) {
-                Element superclass = env.getTypeUtils().asElement(classElement.getSuperclass());
-                if (superclass instanceof TypeElement) {
+                Optional<TypeSnapshot> superclassType = model.type(superclassName);
+                if (superclassType.isPresent()) {
                     classDiagram.addChild(sep);
-                    Type superType = createAndPopulateType(null, (TypeElement) superclass);
-                    superType.getChildren().removeIf(child -> !(child instanceof TypeMember) || !((TypeMember) child).isAbstract);
+                    Type superType = createAndPopulateType(null, superclassType.get());
+                    superType.retainAbstractMembers();
                     classDiagram.addChild(superType);
                     sep = Literal.EMPTY;
                 }
@@ -87,31 +77,31 @@ public class UMLFactory {
         }
 
         // Add interfaces
-        for (TypeMirror interfaceType : classElement.getInterfaces()) {
-            TypeName ifName = TypeNameVisitor.INSTANCE.visit(interfaceType);
-            if (!config.excludedTypeReferences().contains(ifName.qualified)) {
-                Element implementedInterface = env.getTypeUtils().asElement(interfaceType);
-                if (implementedInterface instanceof TypeElement) {
+        for (int implemented : graph.interfaces(node)) {
+            String ifName = graph.typeName(implemented).qualified;
+            if (!config.excludedTypeReferences().contains(ifName)) {
+                Optional<TypeSnapshot> implementedInterface = model.type(ifName);
+                if (implementedInterface.isPresent()) {
                     classDiagram.addChild(sep);
-                    Type implementedType = createAndPopulateType(null, (TypeElement) implementedInterface);
-                    implementedType.getChildren().removeIf(child -> !(child instanceof TypeMember) || !((TypeMember) child).isAbstract);
+                    Type implementedType = createAndPopulateType(null, implementedInterface.get());
+                    implementedType.retainAbstractMembers();
                     classDiagram.addChild(implementedType);
                     sep = Literal.EMPTY;
                 }
-                references.add(new Reference(from(type.name.qualified), "..|>", to(ifName.qualified)).canonical());
+                references.add(new Reference(from(type.name.qualified), "..|>", to(ifName)).canonical());
             }
         }
 
         // Add containing class reference
-        ElementKind enclosingKind = classElement.getEnclosingElement().getKind();
-        if (enclosingKind.isClass() || enclosingKind.isInterface()) {
-            String enclosingTypeName = TypeNameVisitor.INSTANCE.visit(classElement.getEnclosingElement().asType()).qualified;
+        final int enclosing = graph.enclosingType(node);
+        if (enclosing != TypeGraph.NONE) {
+            String enclosingTypeName = graph.typeName(enclosing).qualified;
             if (!config.excludedTypeReferences().contains(enclosingTypeName)) {
-                Element enclosingElement = classElement.getEnclosingElement();
-                if (enclosingElement instanceof TypeElement) {
+                Optional<TypeSnapshot> enclosingElement = model.type(enclosingTypeName);
+                if (enclosingElement.isPresent()) {
                     classDiagram.addChild(sep);
-                    Type enclosingType = createAndPopulateType(null, (TypeElement) enclosingElement);
-                    enclosingType.getChildren().removeIf(child -> !(child instanceof TypeMember) || !((TypeMember) child).isAbstract);
+                    Type enclosingType = createAndPopulateType(null, enclosingElement.get());
+                    enclosingType.retainAbstractMembers();
                     classDiagram.addChild(enclosingType);
                     sep = Literal.EMPTY;
                 }
@@ -120,14 +110,14 @@ public class UMLFactory {
         }
 
         // Add inner classes
-        classElement.getEnclosedElements().stream()
-                .filter(child -> child.getKind().isInterface() || child.getKind().isClass())
-                .filter(TypeElement.class::isInstance).map(TypeElement.class::cast)
-                .forEach(innerclassElem -> {
-                    Type innerType = createType(null, innerclassElem);
-                    classDiagram.addChild(innerType);
-                    references.add(new Reference(from(type.name.qualified), "+--", to(innerType.name.qualified)).canonical());
-                });
+        for (int inner : graph.innerTypes(node)) {
+            Optional<TypeSnapshot> innerclass = model.type(graph.typeName(inner).qualified);
+            if (innerclass.isPresent()) {
+                Type innerType = createType(null, innerclass.get());
+                classDiagram.addChild(innerType);
+                references.add(new Reference(from(type.name.qualified), "+--", to(innerType.name.qualified)).canonical());
+            }
+        }
 
         if (!references.isEmpty()) {
             classDiagram.addChild(Literal.NEWLINE);
@@ -137,11 +127,11 @@ public class UMLFactory {
         return classDiagram;
     }
 
-    public UMLDiagram createPackageDiagram(PackageElement packageElement) {
-        PackageDiagram packageDiagram = new PackageDiagram(config, packageElement.getQualifiedName().toString());
+    public UMLDiagram createPackageDiagram(PackageSnapshot packageSnapshot) {
+        PackageDiagram packageDiagram = new PackageDiagram(config, packageSnapshot.name);
         Map<Namespace, Collection<Type>> foreignTypes = new LinkedHashMap<>();
         List<Reference> references = new ArrayList<>();
-        packageDiagram.addChild(createPackage(packageDiagram, packageElement, foreignTypes, references));
+        packageDiagram.addChild(createPackage(packageDiagram, packageSnapshot, foreignTypes, references));
 
         // Filter "java.lang" or "java.util" references that occur >= 3 times
         // Maybe somehow make this configurable as well?
@@ -175,205 +165,115 @@ public class UMLFactory {
         return packageDiagram;
     }
 
-    Namespace packageOf(TypeElement typeElement) {
-        return new Namespace(diagram.get(), env.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString());
+    Namespace packageOf(TypeSnapshot type) {
+        return new Namespace(diagram.get(), type.packageName);
     }
 
-    Field createField(Type containingType, VariableElement variable) {
-        Set<Modifier> modifiers = requireNonNull(variable, "Variable element is <null>.").getModifiers();
+    Field createField(Type containingType, MemberSnapshot variable) {
+        requireNonNull(variable, "Variable snapshot is <null>.");
         Field field = new Field(containingType,
-                visibilityOf(modifiers),
-                modifiers.contains(Modifier.STATIC),
-                variable.getSimpleName().toString(),
-                TypeNameVisitor.INSTANCE.visit(variable.asType())
+                variable.visibility,
+                variable.isStatic,
+                variable.name,
+                variable.type
         );
-        if (env.getElementUtils().isDeprecated(variable)) field = field.deprecated();
+        if (variable.isDeprecated) field = field.deprecated();
         return field;
     }
 
-    private Parameters createParameters(List<? extends VariableElement> params) {
+    private Parameters createParameters(MemberSnapshot executable) {
         Parameters result = new Parameters();
-        Boolean varargs = null;
-        for (VariableElement param : params) {
-            if (varargs == null) result = result.varargs(varargs = isVarArgsMethod(param.getEnclosingElement()));
-            result = result.add(param.getSimpleName().toString(), TypeNameVisitor.INSTANCE.visit(param.asType()));
+        if (!executable.parameterNames.isEmpty()) result = result.varargs(executable.varargs);
+        for (int i = 0; i < executable.parameterNames.size(); i++) {
+            result = result.add(executable.parameterNames.get(i), executable.parameterTypes.get(i));
         }
         return result;
     }
 
-    private boolean isOnlyDefaultConstructor(Collection<ExecutableElement> constructors) {
-        return constructors.size() == 1 && constructors.iterator().next().getParameters().isEmpty();
+    private boolean isOnlyDefaultConstructor(Collection<MemberSnapshot> constructors) {
+        return constructors.size() == 1 && constructors.iterator().next().parameterNames.isEmpty();
     }
 
-    Method createConstructor(Type containingType, ExecutableElement executableElement) {
-        Set<Modifier> modifiers = requireNonNull(executableElement, "Executable element is <null>.").getModifiers();
+    Method createConstructor(Type containingType, MemberSnapshot executable) {
+        requireNonNull(executable, "Executable snapshot is <null>.");
         Method constructor = new Method(containingType,
-                visibilityOf(modifiers),
-                modifiers.contains(Modifier.ABSTRACT),
-                modifiers.contains(Modifier.STATIC),
+                executable.visibility,
+                executable.isAbstract,
+                executable.isStatic,
                 containingType.name.simple,
-                createParameters(executableElement.getParameters()),
+                createParameters(executable),
                 null
         );
-        if (env.getElementUtils().isDeprecated(executableElement)) constructor = constructor.deprecated();
+        if (executable.isDeprecated) constructor = constructor.deprecated();
         return constructor;
     }
 
-    Method createMethod(Type containingType, ExecutableElement executableElement) {
-        Set<Modifier> modifiers = requireNonNull(executableElement, "Executable element is <null>.").getModifiers();
+    Method createMethod(Type containingType, MemberSnapshot executable) {
+        requireNonNull(executable, "Executable snapshot is <null>.");
         Method method = new Method(containingType,
-                visibilityOf(modifiers),
-                modifiers.contains(Modifier.ABSTRACT),
-                modifiers.contains(Modifier.STATIC),
-                executableElement.getSimpleName().toString(),
-                createParameters(executableElement.getParameters()),
-                TypeNameVisitor.INSTANCE.visit(executableElement.getReturnType())
+                executable.visibility,
+                executable.isAbstract,
+                executable.isStatic,
+                executable.name,
+                createParameters(executable),
+                executable.type
         );
-        if (env.getElementUtils().isDeprecated(executableElement)) method = method.deprecated();
+        if (executable.isDeprecated) method = method.deprecated();
         return method;
     }
 
-    static Visibility visibilityOf(Set<Modifier> modifiers) {
-        return modifiers.contains(Modifier.PRIVATE) ? Visibility.PRIVATE
-                : modifiers.contains(Modifier.PROTECTED) ? Visibility.PROTECTED
-                : modifiers.contains(Modifier.PUBLIC) ? Visibility.PUBLIC
-                : Visibility.PACKAGE_PRIVATE;
-    }
-
     /**
      * Creates an 'empty' type (i.e. without any fields, constructors or methods)
      *
-     * @param containingPackage The containing package of the type (optional, will be obtained from typeElement if null).
-     * @param type              The type element to create a Type object for.
+     * @param containingPackage The containing package of the type (optional, will be obtained from the type if null).
+     * @param type              The type snapshot to create a Type object for.
      * @return The empty Type object.
      */
-    private Type createType(Namespace containingPackage, TypeElement type) {
-        requireNonNull(type, "Type element is <null>.");
+    private Type createType(Namespace containingPackage, TypeSnapshot type) {
+        requireNonNull(type, "Type snapshot is <null>.");
         if (containingPackage == null) containingPackage = packageOf(type);
-        return new Type(containingPackage, typeClassificationOf(type), TypeNameVisitor.INSTANCE.visit(type.asType()));
+        return new Type(containingPackage, type.classification, type.name);
     }
 
-    private Type createAndPopulateType(Namespace containingPackage, TypeElement type) {
+    private Type createAndPopulateType(Namespace containingPackage, TypeSnapshot type) {
         return populateType(createType(containingPackage, type), type);
     }
 
-    private static Type.Classification typeClassificationOf(TypeElement type) {
-        ElementKind kind = type.getKind();
-        Set<Modifier> modifiers = type.getModifiers();
-        return ENUM.equals(kind) ? Type.Classification.ENUM
-                : ElementKind.INTERFACE.equals(kind) ? Type.Classification.INTERFACE
-                : ElementKind.ANNOTATION_TYPE.equals(kind) ? Type.Classification.ANNOTATION
-                : modifiers.contains(Modifier.ABSTRACT) ? Type.Classification.ABSTRACT_CLASS
-                : Type.Classification.CLASS;
-    }
-
-    private Type populateType(Type type, TypeElement typeElement) {
+    private Type populateType(Type type, TypeSnapshot typeSnapshot) {
         // Add the various parts of the class UML, order matters here, obviously!
-        List<? extends Element> enclosedElements = typeElement.getEnclosedElements();
-        if (Type.Classification.ENUM.equals(type.getClassfication())) enclosedElements.stream()
-                .filter(elem -> ElementKind.ENUM_CONSTANT.equals(elem.getKind()))
-                .filter(VariableElement.class::isInstance).map(VariableElement.class::cast)
-                .map(enumConst -> createField(type, enumConst))
-                .forEach(type::addChild);
-
-        enclosedElements.stream()
-                .filter(elem -> ElementKind.FIELD.equals(elem.getKind()))
-                .filter(VariableElement.class::isInstance).map(VariableElement.class::cast)
-                .map(field -> createField(type, field))
-                .forEach(type::addChild);
-
-        List<ExecutableElement> constructors = enclosedElements.stream()
-                .filter(elem -> ElementKind.CONSTRUCTOR.equals(elem.getKind()))
-                .filter(ExecutableElement.class::isInstance).map(ExecutableElement.class::cast)
-                .collect(toList());
-        if (!isOnlyDefaultConstructor(constructors)) {
-            constructors.stream()
-                    .map(constructor -> createConstructor(type, constructor))
-                    .forEach(type::addChild);
+        if (Type.Classification.ENUM.equals(type.getClassfication())) {
+            for (MemberSnapshot enumConst : typeSnapshot.enumConstants) type.addChild(createField(type, enumConst));
         }
-
-        enclosedElements.stream()
-                .filter(elem -> ElementKind.METHOD.equals(elem.getKind()))
-                .filter(ExecutableElement.class::isInstance).map(ExecutableElement.class::cast)
-                .filter(method -> !isMethodFromExcludedSuperclass(method))
-                .map(method -> createMethod(type, method))
-                .forEach(type::addChild);
-
-        return env.getElementUtils().isDeprecated(typeElement) ? type.deprecated() : type;
-    }
-
-    private boolean isMethodFromExcludedSuperclass(ExecutableElement method) {
-        boolean result = false;
-        Element containingClass = method.getEnclosingElement();
-        if (containingClass.getKind().isClass() || containingClass.getKind().isInterface()) {
-            result = methodsFromExcludedSuperclasses().stream().anyMatch(
-                    m -> similarMethodSignatures(m, method)
-                            && env.getTypeUtils().isAssignable(containingClass.asType(), m.getEnclosingElement().asType()));
-        }
-        result = result || isExcludedEnumMethod(method);
-        return result;
-    }
-
-    private Collection<ExecutableElement> _methodsFromExcludedSuperclasses = null;
-
-    private Collection<ExecutableElement> methodsFromExcludedSuperclasses() {
-        if (_methodsFromExcludedSuperclasses == null) {
-            _methodsFromExcludedSuperclasses = config.excludedTypeReferences().stream()
-                    .map(env.getElementUtils()::getTypeElement).filter(Objects::nonNull)
-                    .map(TypeElement::getEnclosedElements).flatMap(Collection::stream)
-                    .filter(elem -> ElementKind.METHOD.equals(elem.getKind()))
-                    .filter(ExecutableElement.class::isInstance).map(ExecutableElement.class::cast)
-                    .filter(method -> !method.getModifiers().contains(Modifier.ABSTRACT))
-                    .filter(method -> visibilityOf(method.getModifiers()).compareTo(Visibility.PRIVATE) > 0)
-                    .collect(toCollection(LinkedHashSet::new));
-        }
-        return _methodsFromExcludedSuperclasses;
-    }
-
-    private boolean isExcludedEnumMethod(ExecutableElement method) {
-        if (config.excludedTypeReferences().contains(Enum.class.getName())
-                && ElementKind.ENUM.equals(method.getEnclosingElement().getKind())
-                && method.getModifiers().contains(Modifier.STATIC)) {
-            if ("values".equals(method.getSimpleName().toString()) && method.getParameters().isEmpty()) {
-                return true;
-            } else if ("valueOf".equals(method.getSimpleName().toString()) && method.getParameters().size() == 1) {
-                String paramType = TypeNameVisitor.INSTANCE.visit(method.getParameters().get(0).asType()).qualified;
-                return String.class.getName().equals(paramType);
+        for (MemberSnapshot field : typeSnapshot.fields) type.addChild(createField(type, field));
+        if (!isOnlyDefaultConstructor(typeSnapshot.constructors)) {
+            for (MemberSnapshot constructor : typeSnapshot.constructors) {
+                type.addChild(createConstructor(type, constructor));
             }
         }
-        return false;
-    }
-
-    private boolean similarMethodSignatures(ExecutableElement method1, ExecutableElement method2) {
-        if (!method1.getSimpleName().equals(method2.getSimpleName())) return false;
-        int paramCount = method1.getParameters().size();
-        if (paramCount != method2.getParameters().size()) return false;
-
-        Types typeUtils = env.getTypeUtils();
-        boolean assignable1 = true, assignable2 = true;
-        for (int i = 0; i < paramCount && (assignable1 || assignable2); i++) {
-            TypeMirror param1 = method1.getParameters().get(i).asType();
-            TypeMirror param2 = method2.getParameters().get(i).asType();
-            assignable1 = assignable1 && typeUtils.isAssignable(param1, param2);
-            assignable2 = assignable2 && typeUtils.isAssignable(param2, param1);
+        for (MemberSnapshot method : typeSnapshot.methods) {
+            if (!method.excluded) type.addChild(createMethod(type, method));
         }
-        return assignable1 || assignable2;
+
+        type.completeMembers();
+        return typeSnapshot.isDeprecated ? type.deprecated() : type;
     }
 
-    private void addForeignType(Map<Namespace, Collection<Type>> foreignTypes, Element typeElement) {
-        if (foreignTypes != null && typeElement instanceof TypeElement) {
-            Type type = createAndPopulateType(null, (TypeElement) typeElement);
+    private void addForeignType(Map<Namespace, Collection<Type>> foreignTypes, Optional<TypeSnapshot> typeSnapshot) {
+        if (foreignTypes != null && typeSnapshot.isPresent()) {
+            Type type = createAndPopulateType(null, typeSnapshot.get());
             foreignTypes.computeIfAbsent(type.getNamespace(), (namespace) -> new LinkedHashSet<>()).add(type);
         }
     }
 
     private Collection<Reference> findPackageReferences(
-            Namespace namespace, Map<Namespace, Collection<Type>> foreignTypes, TypeElement typeElement, Type type) {
+            Namespace namespace, Map<Namespace, Collection<Type>> foreignTypes, Type type) {
         Collection<Reference> references = new LinkedHashSet<>();
+        final int node = graph.id(type.name.qualified);
 
         // Superclass reference.
-        if (!TypeKind.NONE.equals(typeElement.getSuperclass().getKind())) {
-            String superclass = TypeNameVisitor.INSTANCE.visit(typeElement.getSuperclass()).qualified;
+        final int superclassNode = graph.superclass(node);
+        if (superclassNode != TypeGraph.NONE) {
+            String superclass = graph.typeName(superclassNode).qualified;
             if (!config.excludedTypeReferences().contains(superclass)) {
                 references.add(new Reference(
                         from(type.name.qualified), "--|>",
@@ -383,101 +283,42 @@ public class UMLFactory {
         }
 
         // Implemented interfaces.
-        typeElement.getInterfaces().forEach(interfaceType -> {
-            TypeName ifName = TypeNameVisitor.INSTANCE.visit(interfaceType);
+        for (int implemented : graph.interfaces(node)) {
+            TypeName ifName = graph.typeName(implemented);
             if (!config.excludedTypeReferences().contains(ifName.qualified)) {
                 references.add(new Reference(
                         from(type.name.qualified), "..|>",
                         to(ifName.qualified)));
                 if (!namespace.contains(ifName)) {
-                    addForeignType(foreignTypes, env.getTypeUtils().asElement(interfaceType));
+                    addForeignType(foreignTypes, model.type(ifName.qualified));
                 }
             }
-        });
+        }
 
         // Add reference to containing class from innner classes.
-        ElementKind enclosingKind = typeElement.getEnclosingElement().getKind();
-        if (enclosingKind.isClass() || enclosingKind.isInterface()) {
+        final int enclosing = graph.enclosingType(node);
+        if (enclosing != TypeGraph.NONE) {
             references.add(new Reference(
-                    from(TypeNameVisitor.INSTANCE.visit(typeElement.getEnclosingElement().asType()).qualified),
+                    from(graph.typeName(enclosing).qualified),
                     "+--", to(type.name.qualified)));
         }
 
-        // Add 'uses' references by replacing visible fields
-        typeElement.getEnclosedElements().stream()
-                .filter(member -> ElementKind.FIELD.equals(member.getKind()))
-                .filter(VariableElement.class::isInstance).map(VariableElement.class::cast)
-                .filter(field -> config.fields().include(visibilityOf(field.getModifiers())))
-                .forEach(field -> {
-                    String fieldName = field.getSimpleName().toString();
-                    TypeNameWithCardinality fieldType = typeNameWithCardinality.apply(field.asType());
-                    if (namespace.contains(fieldType.typeName)) {
-                        addReference(references, new Reference(
-                                from(type.name.qualified),
-                                "-->",
-                                to(fieldType.typeName.qualified, fieldType.cardinality),
-                                fieldName));
-                        type.getChildren().removeIf(child -> child instanceof Field
-                                && ((Field) child).name.equals(fieldName));
-                    }
-                });
-
-        // Add 'uses' reference by replacing visible getters/setters
-        typeElement.getEnclosedElements().stream()
-                .filter(member -> ElementKind.METHOD.equals(member.getKind()))
-                .filter(ExecutableElement.class::isInstance).map(ExecutableElement.class::cast)
-                .filter(method -> config.methods().include(visibilityOf(method.getModifiers())))
-                .forEach(method -> {
-                    String propertyName = propertyName(method);
-                    if (propertyName != null) {
-                        TypeNameWithCardinality returnType = typeNameWithCardinality.apply(propertyType(method));
-                        if (namespace.contains(returnType.typeName)) {
-                            addReference(references, new Reference(
-                                    from(type.name.qualified),
-                                    "-->",
-                                    to(returnType.typeName.qualified, returnType.cardinality),
-                                    propertyName));
-                            type.getChildren().removeIf(child -> child instanceof Method
-                                    && ((Method) child).name.equals(method.getSimpleName().toString()));
-                        }
-                    }
-                });
-
-        return references;
-    }
-
-    private static String propertyName(ExecutableElement method) {
-        String name = method.getSimpleName().toString();
-        int params = method.getParameters().size();
-        if (params == 0 && name.length() > 3 && name.startsWith("get")) {
-            char[] result = name.substring(3).toCharArray();
-            result[0] = Character.toLowerCase(result[0]);
-            return new String(result);
-        } else if (params == 1 && name.length() > 3 && name.startsWith("set")) {
-            char[] result = name.substring(3).toCharArray();
-            result[0] = Character.toLowerCase(result[0]);
-            return new String(result);
-        } else if (params == 0 && name.length() > 2 && name.startsWith("is") && isBooleanPrimitive(method.getReturnType())) {
-            char[] result = name.substring(2).toCharArray();
-            result[0] = Character.toLowerCase(result[0]);
-            return new String(result);
-        }
-        return null;
-    }
-
-    private static TypeMirror propertyType(ExecutableElement method) {
-        if (method.getSimpleName().toString().startsWith("set") && !method.getParameters().isEmpty()) {
-            return method.getParameters().get(0).asType();
+        // Add 'uses' references by replacing visible fields and getters/setters
+        for (int edge = graph.firstUse(node); edge < graph.endOfUses(node); edge++) {
+            TypeName usedType = graph.typeName(graph.useTarget(edge));
+            if (namespace.contains(usedType)) {
+                addReference(references, new Reference(
+                        from(type.name.qualified),
+                        "-->",
+                        to(usedType.qualified, graph.useCardinality(edge)),
+                        graph.useName(edge)));
+                final String memberName = graph.useMember(edge);
+                final Class<? extends TypeMember> memberType = graph.isFieldUse(edge) ? Field.class : Method.class;
+                type.removeMembers(memberType, memberName);
+            }
         }
-        return method.getReturnType();
-    }
 
-    private static boolean isVarArgsMethod(Element element) {
-        return element instanceof ExecutableElement && ((ExecutableElement) element).isVarArgs();
-    }
-
-    private static boolean isBooleanPrimitive(TypeMirror type) {
-        return "boolean".equals(TypeNameVisitor.INSTANCE.visit(type).qualified);
+        return references;
     }
 
     private static void addReference(Collection<Reference> collection, Reference reference) {
@@ -491,25 +332,17 @@ public class UMLFactory {
         collection.add(result);
     }
 
-    private static Stream<TypeElement> innerTypes(TypeElement type) {
-        return Stream.concat(Stream.of(type), type.getEnclosedElements().stream()
-                .filter(TypeElement.class::isInstance).map(TypeElement.class::cast)
-                .flatMap(UMLFactory::innerTypes));
-    }
-
     Namespace createPackage(UMLDiagram diagram,
-                            PackageElement packageElement,
+                            PackageSnapshot packageSnapshot,
                             Map<Namespace, Collection<Type>> foreignTypes,
                             List<Reference> references) {
-        Namespace pkg = new Namespace(diagram, packageElement.getQualifiedName().toString());
+        Namespace pkg = new Namespace(diagram, packageSnapshot.name);
 
         // Add all types contained in this package.
-        packageElement.getEnclosedElements().stream()
-                .filter(TypeElement.class::isInstance).map(TypeElement.class::cast)
-                .flatMap(UMLFactory::innerTypes)
-                .map(typeElement -> {
-                    Type type = createAndPopulateType(pkg, typeElement);
-                    references.addAll(findPackageReferences(pkg, foreignTypes, typeElement, type));
+        packageSnapshot.types.stream()
+                .map(typeSnapshot -> {
+                    Type type = createAndPopulateType(pkg, typeSnapshot);
+                    references.addAll(findPackageReferences(pkg, foreignTypes, type));
                     return type;
                 })
                 .flatMap(type -> Stream.of(Literal.NEWLINE, type))
@@ -31,6 +31,8 @@ import java.util.function.Consumer;
 import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
+import static nl.talsmasoftware.umldoclet.logging.Message.WARNING_UNRECOGNIZED_LAYOUT_ENGINE;
+import static nl.talsmasoftware.umldoclet.logging.Message.WARNING_UNRECOGNIZED_RENDER_BATCH_SIZE;
 
 /**
  * Type that serves as an 'anti-corruption' facade between our Doclet
@@ -67,7 +69,26 @@ final class UMLOptions {
             add(new Option("-d", 1, Kind.STANDARD, (args) -> config.destDirName = args.get(0)));
             add(new Option("-umlImageDirectory", 1, Kind.STANDARD, (args) -> config.images.directory = args.get(0)));
             add(new Option("-umlImageFormat", 1, Kind.STANDARD, (args) -> config.images.addImageFormat(args.get(0))));
+            add(new Option("-umlLayoutEngine", 1, Kind.STANDARD, (args) -> {
+                if (!config.images.setLayoutEngine(args.get(0))) {
+                    config.logger().warn(WARNING_UNRECOGNIZED_LAYOUT_ENGINE, args.get(0));
+                }
+            }));
             add(new Option("-umlEncoding", 1, Kind.STANDARD, (args) -> config.umlencoding = args.get(0)));
+            add(new Option("-umlWriteIfChanged", 0, Kind.STANDARD, (args) -> config.writeIfChanged = true));
+            add(new Option("-umlWarmup", 0, Kind.STANDARD, (args) -> config.warmup = true));
+            add(new Option("-umlRenderBatchSize", 1, Kind.STANDARD, (args) -> {
+                try {
+                    config.renderBatchSize = Math.max(0, Integer.parseInt(args.get(0).trim()));
+                } catch (NumberFormatException nfe) {
+                    config.logger().warn(WARNING_UNRECOGNIZED_RENDER_BATCH_SIZE, args.get(0));
+                }
+            }));
+            add(new Option("-umlOptionalTypes", 1, Kind.STANDARD,
+                    (args) -> DocletConfig.addTypeNames(config.optionalTypes, args.get(0))));
+            add(new Option("-umlCollectionTypes", 1, Kind.STANDARD,
+                    (args) -> DocletConfig.addTypeNames(config.collectionTypes, args.get(0))));
+            add(new Option("-umlEventLog", 1, Kind.STANDARD, (args) -> config.eventLogFile = args.get(0)));
         }};
     }
 
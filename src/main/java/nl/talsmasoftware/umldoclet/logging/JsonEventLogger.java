@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.logging;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Logger that records every logged message as a machine-readable JSON object, one per line
+ * (<a href="http://jsonlines.org">JSON lines</a>).
+ * <p>
+ * Each line contains the {@code timestamp}, the {@code level}, the {@code message} key and its {@code args}.
+ * Numeric arguments are written as JSON numbers, all other arguments as JSON strings.
+ * <p>
+ * Logging only enqueues the event; a single background thread serializes the events and writes them to the file
+ * through a buffered writer. This way the event log does not add latency to the threads doing the actual work.
+ * The log file is flushed whenever the background thread has no more events to write,
+ * and is completed by {@link #close() closing} the logger.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class JsonEventLogger implements Logger, Closeable {
+    private static final Event END_OF_LOG = new Event(0L, null, null, null);
+
+    private final File file;
+    private final Writer writer;
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private final Thread appender;
+    private volatile boolean closed = false;
+    private volatile IOException writeException = null;
+
+    /**
+     * Creates a new event logger, (re)writing the specified file.
+     *
+     * @param file The file to write the JSON lines to.
+     */
+    public JsonEventLogger(File file) {
+        this.file = requireNonNull(file, "Event log file is <null>.");
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Could not create event log: " + file, ioe);
+        }
+        this.appender = new Thread(this::appendEvents, "umldoclet-event-log");
+        this.appender.setDaemon(true);
+        this.appender.start();
+    }
+
+    @Override
+    public void debug(Message key, Object... args) {
+        enqueue("debug", key, args);
+    }
+
+    @Override
+    public void info(Message key, Object... args) {
+        enqueue("info", key, args);
+    }
+
+    @Override
+    public void warn(Message key, Object... args) {
+        enqueue("warn", key, args);
+    }
+
+    @Override
+    public void error(Message key, Object... args) {
+        enqueue("error", key, args);
+    }
+
+    private void enqueue(String level, Message key, Object... args) {
+        if (!closed && key != null) {
+            queue.offer(new Event(System.currentTimeMillis(), level, key, args == null ? null : args.clone()));
+        }
+    }
+
+    /**
+     * Writes all remaining events and closes the event log file.
+     *
+     * @throws IOException if there were errors writing to or closing the event log file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            queue.offer(END_OF_LOG);
+            try {
+                appender.join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for event log to be written: " + file, ie);
+            }
+            writer.close();
+            if (writeException != null) throw writeException;
+        }
+    }
+
+    private void appendEvents() {
+        try {
+            for (Event event = queue.take(); event != END_OF_LOG; event = queue.take()) {
+                if (writeException == null) try {
+                    event.writeTo(writer).write('\n');
+                    if (queue.isEmpty()) writer.flush();
+                } catch (IOException | RuntimeException writeError) {
+                    writeException = writeError instanceof IOException ? (IOException) writeError
+                            : new IOException("Error writing event to " + file + ": " + writeError.getMessage(), writeError);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + file + '}';
+    }
+
+    private static final class Event {
+        private final long timestamp;
+        private final String level;
+        private final Message key;
+        private final Object[] args;
+
+        private Event(long timestamp, String level, Message key, Object[] args) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.key = key;
+            this.args = args;
+        }
+
+        private Writer writeTo(Writer out) throws IOException {
+            out.write("{\"timestamp\":\"");
+            out.write(Instant.ofEpochMilli(timestamp).toString());
+            out.write("\",\"level\":\"");
+            out.write(level);
+            out.write("\",\"message\":\"");
+            out.write(key.name());
+            out.write("\",\"args\":[");
+            if (args != null) for (int i = 0; i < args.length; i++) {
+                if (i > 0) out.write(',');
+                writeValue(out, args[i]);
+            }
+            out.write("]}");
+            return out;
+        }
+
+        private static void writeValue(Writer out, Object value) throws IOException {
+            if (value == null) {
+                out.write("null");
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                out.write(value.toString());
+            } else if (value instanceof Enum) {
+                writeString(out, ((Enum<?>) value).name());
+            } else {
+                writeString(out, value.toString());
+            }
+        }
+
+        private static void writeString(Writer out, String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch == '"' || ch == '\\') out.append('\\').append(ch);
+                else if (ch == '\n') out.write("\\n");
+                else if (ch == '\r') out.write("\\r");
+                else if (ch == '\t') out.write("\\t");
+                else if (ch < 0x20) out.write(String.format("\\u%04x", (int) ch));
+                else out.write(ch);
+            }
+            out.write('"');
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package nl.talsmasoftware.umldoclet.logging;
 
+import java.util.function.Supplier;
+
 /**
  * Basic {@code Logger} interface to avoid dependencies on the {@code jdk.logger} module or {@code Slf4J}.
  *
@@ -30,4 +32,18 @@ public interface Logger {
 
     void error(Message key, Object... args);
 
+    /**
+     * Performs an action whose messages belong together, such as the messages for a single diagram.
+     * <p>
+     * Loggers that are used from multiple threads can keep these messages together in their output.
+     * By default the action is simply performed.
+     *
+     * @param action The action to perform.
+     * @param <T>    The result type of the action.
+     * @return The result of the action.
+     */
+    default <T> T grouped(Supplier<T> action) {
+        return action.get();
+    }
+
 }
@@ -17,8 +17,11 @@ package nl.talsmasoftware.umldoclet.logging;
 
 import nl.talsmasoftware.umldoclet.UMLDoclet;
 
+import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.util.ResourceBundle.getBundle;
 
@@ -38,22 +41,59 @@ public enum Message {
     DEBUG_SKIPPING_FILE,
     DEBUG_RENAMED_FILE_FROM,
     DEBUG_COPIED_FILE_FROM,
+    DEBUG_RENDERED_IMAGE_FILE,
+    DEBUG_UNCHANGED_IMAGE_FILE,
+    DEBUG_PHASE_DURATION,
     INFO_GENERATING_FILE,
     INFO_ADD_DIAGRAM_TO_FILE,
     WARNING_UNRECOGNIZED_IMAGE_FORMAT,
+    WARNING_UNRECOGNIZED_LAYOUT_ENGINE,
+    WARNING_UNRECOGNIZED_RENDER_BATCH_SIZE,
     ERROR_COULDNT_RENDER_UML,
     ERROR_UNANTICIPATED_ERROR_GENERATING_UML,
     ERROR_UNANTICIPATED_ERROR_POSTPROCESSING_HTML;
 
     private final String key = name().toLowerCase().replace('_', '.');
+    private final ConcurrentMap<Locale, String> patterns = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Locale, MessageFormat> formats = new ConcurrentHashMap<>();
 
     public String toString() {
         return toString(null);
     }
 
+    /**
+     * Returns the message pattern for the requested locale.
+     * <p>
+     * The resource bundle is only consulted once per locale, subsequent calls return the cached pattern.
+     *
+     * @param locale The locale to return the message for (optional, defaults to the default locale).
+     * @return The message pattern from the resource bundle.
+     */
     public String toString(Locale locale) {
-        final String bundleName = UMLDoclet.class.getName();
-        final ResourceBundle bundle = getBundle(bundleName, locale == null ? Locale.getDefault() : locale);
+        return patterns.computeIfAbsent(locale == null ? Locale.getDefault() : locale, this::lookupPattern);
+    }
+
+    /**
+     * Formats the message for the requested locale with the specified arguments.
+     * <p>
+     * The message pattern is parsed only once per locale.
+     * If there are no arguments, the message pattern is returned as-is.
+     *
+     * @param locale The locale to format the message for (optional, defaults to the default locale).
+     * @param args   The arguments to format the message with.
+     * @return The formatted message.
+     */
+    public String format(Locale locale, Object... args) {
+        final Locale loc = locale == null ? Locale.getDefault() : locale;
+        if (args == null || args.length == 0) return toString(loc);
+        final MessageFormat format = formats.computeIfAbsent(loc, l -> new MessageFormat(toString(l), l));
+        synchronized (format) { // MessageFormat is not thread-safe
+            return format.format(args);
+        }
+    }
+
+    private String lookupPattern(Locale locale) {
+        final ResourceBundle bundle = getBundle(UMLDoclet.class.getName(), locale);
         return bundle.getString(key);
     }
 }
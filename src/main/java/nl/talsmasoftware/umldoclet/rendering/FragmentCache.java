@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Run-wide cache of rendered text fragments that are reused across diagrams.
+ * <p>
+ * The same type is often rendered in many diagrams: in its own class diagram, as supertype in the diagrams
+ * of its subclasses and as a foreign type in other package diagrams.
+ * Caching the rendered members avoids rendering them again for each of those diagrams.
+ * <p>
+ * The cache is thread-safe. A fragment may occasionally be rendered more than once when multiple threads
+ * need it at the same time; the first rendered fragment is kept.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class FragmentCache {
+
+    private final Map<String, String> fragments = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong(0L);
+    private final AtomicLong misses = new AtomicLong(0L);
+
+    /**
+     * Returns the cached fragment for the key, rendering it if it was not yet cached.
+     * <p>
+     * The rendering takes place outside any lock.
+     *
+     * @param key       The key of the fragment (required).
+     * @param rendering The rendering of the fragment if it was not yet cached.
+     * @return The cached or rendered fragment.
+     */
+    public String get(String key, Supplier<String> rendering) {
+        requireNonNull(key, "Fragment key is <null>.");
+        String fragment = fragments.get(key);
+        if (fragment != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            fragment = requireNonNull(rendering.get(), "Rendered fragment is <null>.");
+            final String existing = fragments.putIfAbsent(key, fragment);
+            if (existing != null) fragment = existing;
+        }
+        return fragment;
+    }
+
+    /**
+     * @return The number of fragments that were reused from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of fragments that had to be rendered.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Forgets all cached fragments, for instance when a new doclet run is started.
+     */
+    public void clear() {
+        fragments.clear();
+        hits.set(0L);
+        misses.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{size=" + fragments.size() + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.indent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import static java.lang.Character.isWhitespace;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Single-threaded emitter for UML text, writing into a growable character buffer.
+ * <p>
+ * The emitter indents every new line just like the {@link IndentingWriter}, but keeps the current indentation
+ * as plain state: {@link #indent()} and {@link #unindent()} change the indentation of the emitter itself
+ * instead of creating a new writer. Nothing is synchronized and no I/O takes place
+ * until the emitted text is {@link #writeTo(Writer) written} to a writer.
+ * <p>
+ * Instances are not thread-safe and are meant to be used by one rendering at a time.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class UMLEmitter implements Appendable, CharSequence {
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private char[] buffer;
+    private int length = 0;
+    private Indentation indentation;
+    private boolean addWhitespace = false;
+    private char lastWritten = '\n';
+
+    /**
+     * Creates a new emitter.
+     *
+     * @param indentation The indentation to start with (optional, defaults to {@link Indentation#DEFAULT}).
+     */
+    public UMLEmitter(Indentation indentation) {
+        this(indentation, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new emitter.
+     *
+     * @param indentation     The indentation to start with (optional, defaults to {@link Indentation#DEFAULT}).
+     * @param initialCapacity The initial capacity of the buffer.
+     */
+    public UMLEmitter(Indentation indentation, int initialCapacity) {
+        this.indentation = indentation == null ? Indentation.DEFAULT : indentation;
+        this.buffer = new char[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * @return The current indentation.
+     */
+    public Indentation getIndentation() {
+        return indentation;
+    }
+
+    /**
+     * Increases the indentation for the following lines.
+     *
+     * @return Reference to this emitter for chaining purposes.
+     */
+    public UMLEmitter indent() {
+        indentation = indentation.increase();
+        return this;
+    }
+
+    /**
+     * Decreases the indentation for the following lines.
+     *
+     * @return Reference to this emitter for chaining purposes.
+     */
+    public UMLEmitter unindent() {
+        indentation = indentation.decrease();
+        return this;
+    }
+
+    /**
+     * Makes sure there is at least one whitespace character between the last character and the next.
+     * <p>
+     * The whitespace character is not written until there are other characters that need to be written,
+     * and is omitted if either of them already is a whitespace character.
+     *
+     * @return Reference to this emitter for chaining purposes.
+     */
+    public UMLEmitter whitespace() {
+        addWhitespace = true;
+        return this;
+    }
+
+    /**
+     * Ends the current line with the system line separator.
+     *
+     * @return Reference to this emitter for chaining purposes.
+     */
+    public UMLEmitter newline() {
+        return append(NEWLINE);
+    }
+
+    @Override
+    public UMLEmitter append(CharSequence csq) {
+        final CharSequence chars = csq == null ? "null" : csq;
+        return append(chars, 0, chars.length());
+    }
+
+    @Override
+    public UMLEmitter append(CharSequence csq, int start, int end) {
+        final CharSequence chars = csq == null ? "null" : csq;
+        if (start < 0 || start > end || end > chars.length()) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + chars.length());
+        }
+        if (start < end) {
+            beforeWriting(chars.charAt(start));
+            for (int i = start; i < end; i++) write(chars.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public UMLEmitter append(char c) {
+        beforeWriting(c);
+        write(c);
+        return this;
+    }
+
+    private void beforeWriting(char first) {
+        if (addWhitespace) {
+            addWhitespace = false;
+            if (!isWhitespace(lastWritten) && !isWhitespace(first)) {
+                ensureCapacity(1);
+                buffer[length++] = ' ';
+                lastWritten = ' ';
+            }
+        }
+    }
+
+    private void write(char ch) {
+        if (isEol(lastWritten) && !isEol(ch)) {
+            final int width = indentation.length();
+            ensureCapacity(width + 1);
+            for (int i = 0; i < width; i++) buffer[length++] = indentation.charAt(i);
+        } else {
+            ensureCapacity(1);
+        }
+        buffer[length++] = ch;
+        lastWritten = ch;
+    }
+
+    private static boolean isEol(char ch) {
+        return ch == '\r' || ch == '\n';
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    /**
+     * Writes the emitted text to the writer in a single call.
+     *
+     * @param writer The writer to write the emitted text to.
+     * @throws IOException if the writer could not be written to.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        requireNonNull(writer, "Writer is <null>.").write(buffer, 0, length);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new String(buffer, start, end - start);
+    }
+
+    /**
+     * @return The emitted text.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+}
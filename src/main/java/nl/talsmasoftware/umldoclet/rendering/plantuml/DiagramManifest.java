@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.plantuml;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * In-memory manifest of the diagram images that were generated during the current doclet run,
+ * together with the HTML pages they belong in.
+ * <p>
+ * Postprocessing the HTML can use this manifest to find the generated diagrams and open only the pages that
+ * need one, instead of walking the entire output directory.
+ * Entries are recorded in the order their diagrams were rendered.
+ * <p>
+ * Before rendering starts, the {@code .puml} files of all diagrams in the run are
+ * {@link #expect(File) announced}, so links between diagrams can be resolved regardless of the order
+ * in which the diagrams are rendered.
+ * Recording is thread-safe.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class DiagramManifest {
+
+    private final Queue<File> htmlFiles = new ConcurrentLinkedQueue<>();
+    private final Queue<File> imageFiles = new ConcurrentLinkedQueue<>();
+    private final Set<Path> expectedDiagrams = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Announces a {@code .puml} file that will be rendered during the current doclet run.
+     *
+     * @param pumlFile The {@code .puml} file of a diagram that is about to be rendered.
+     */
+    public void expect(File pumlFile) {
+        if (pumlFile != null) expectedDiagrams.add(normalized(pumlFile));
+    }
+
+    /**
+     * @param pumlFile The {@code .puml} file to check.
+     * @return Whether the file was {@link #expect(File) announced} to be rendered during the current doclet run.
+     */
+    public boolean isExpected(File pumlFile) {
+        return pumlFile != null && expectedDiagrams.contains(normalized(pumlFile));
+    }
+
+    /**
+     * Records the image files that were generated for a single diagram.
+     *
+     * @param htmlFile        The HTML page the diagram should be added to (optional).
+     * @param generatedImages The generated image files.
+     */
+    public void add(File htmlFile, Collection<File> generatedImages) {
+        if (generatedImages != null) generatedImages.forEach(file -> {
+            if (file != null) imageFiles.add(file);
+        });
+        if (htmlFile != null) htmlFiles.add(htmlFile);
+    }
+
+    /**
+     * @return Whether no diagrams were recorded (yet).
+     */
+    public boolean isEmpty() {
+        return imageFiles.isEmpty() && htmlFiles.isEmpty();
+    }
+
+    /**
+     * @return A snapshot of the recorded HTML pages that need a diagram.
+     */
+    public List<File> htmlFiles() {
+        return unmodifiableList(new ArrayList<>(htmlFiles));
+    }
+
+    /**
+     * @return A snapshot of the recorded image files.
+     */
+    public List<File> imageFiles() {
+        return unmodifiableList(new ArrayList<>(imageFiles));
+    }
+
+    /**
+     * Forgets all recorded diagrams, for instance when a new doclet run is started.
+     */
+    public void clear() {
+        htmlFiles.clear();
+        imageFiles.clear();
+        expectedDiagrams.clear();
+    }
+
+    private static Path normalized(File file) {
+        return file.getAbsoluteFile().toPath().normalize();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{html=" + htmlFiles + ", images=" + imageFiles + '}';
+    }
+
+}
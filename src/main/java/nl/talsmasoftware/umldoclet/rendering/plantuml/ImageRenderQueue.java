@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.plantuml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Queue for rendering diagram images.
+ * <p>
+ * With a batch size of zero (the default), images are rendered immediately by the thread generating the diagram.
+ * Otherwise, the images are rendered in the background, while the doclet continues generating the rest
+ * of the documentation. Renderings are collected into batches of the configured size, which are handed
+ * to the fork/join pool that generates the diagrams. Sharing that pool bounds the number of images rendered
+ * in parallel (and the number of concurrent Graphviz processes) by the parallelism of the diagram generation.
+ * The batch size only determines how often renderings are handed to the pool, not how many run in parallel.
+ * <p>
+ * {@link #awaitCompletion()} must be called before the rendered images are used;
+ * it also reports whether all renderings succeeded.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class ImageRenderQueue {
+
+    private final int batchSize;
+    private final AtomicInteger failures = new AtomicInteger(0);
+    private final List<Future<?>> pending = new ArrayList<>();
+    private List<BooleanSupplier> batch = new ArrayList<>();
+    private ForkJoinPool pool;
+
+    /**
+     * Creates a new render queue.
+     *
+     * @param batchSize The number of diagrams to render per batch, or {@code 0} to render them immediately.
+     */
+    public ImageRenderQueue(int batchSize) {
+        if (batchSize < 0) throw new IllegalArgumentException("Negative batch size: " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return Whether images are rendered in background batches rather than immediately.
+     */
+    public boolean isBatched() {
+        return batchSize > 0;
+    }
+
+    /**
+     * Submits the rendering of the images for a single diagram.
+     * <p>
+     * The rendering itself should handle (e.g. log) its errors and return whether it succeeded.
+     *
+     * @param rendering The rendering of the images for a diagram.
+     */
+    public void submit(BooleanSupplier rendering) {
+        if (!isBatched()) {
+            render(rendering);
+        } else synchronized (this) {
+            if (pool == null) pool = currentPool();
+            batch.add(rendering);
+            if (batch.size() >= batchSize) submitBatch();
+        }
+    }
+
+    /**
+     * Renders any remaining incomplete batch and waits until all submitted renderings are finished.
+     * The queue can be used again afterwards.
+     *
+     * @return Whether all renderings since the previous completion succeeded.
+     */
+    public boolean awaitCompletion() {
+        final List<Future<?>> renderings;
+        synchronized (this) {
+            submitBatch();
+            renderings = new ArrayList<>(pending);
+            pending.clear();
+            pool = null;
+        }
+        try {
+            for (Future<?> rendering : renderings) rendering.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for images to be rendered.", ie);
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException("Error rendering images: " + ee.getCause().getMessage(), ee.getCause());
+        }
+        return failures.getAndSet(0) == 0;
+    }
+
+    private void render(BooleanSupplier rendering) {
+        if (!rendering.getAsBoolean()) failures.incrementAndGet();
+    }
+
+    private void submitBatch() {
+        if (!batch.isEmpty()) {
+            final List<BooleanSupplier> renderings = batch;
+            batch = new ArrayList<>(batchSize);
+            final ForkJoinPool renderPool = pool != null ? pool : currentPool();
+            renderings.forEach(rendering -> pending.add(renderPool.submit(() -> render(rendering))));
+        }
+    }
+
+    /**
+     * @return The fork/join pool of the current (diagram generating) thread, or the common pool.
+     */
+    private static ForkJoinPool currentPool() {
+        final ForkJoinPool current = ForkJoinTask.getPool();
+        return current != null ? current : ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{batchSize=" + batchSize + '}';
+    }
+
+}
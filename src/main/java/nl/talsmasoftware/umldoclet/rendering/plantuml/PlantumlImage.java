@@ -19,11 +19,13 @@ import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.rendering.writers.WriteIfChangedOutputStream;
 import nl.talsmasoftware.umldoclet.util.FileUtils;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Optional;
@@ -51,17 +53,41 @@ public class PlantumlImage {
     }
 
     public static Optional<PlantumlImage> fromFile(Configuration config, File file) {
-        return fileFormatOf(file).map(format -> new PlantumlImage(config, file, format, () -> createFileOutputStream(file)));
+        return fileFormatOf(file).map(format -> new PlantumlImage(config, file, format,
+                () -> createFileOutputStream(file, config.writeIfChanged())));
     }
 
     public String getName() {
         return file.getPath();
     }
 
-    final void renderPlantuml(String uml) throws IOException {
+    /**
+     * @return Whether the image file exists.
+     */
+    boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * @return The name of the image format (e.g. {@code SVG} or {@code PNG}).
+     */
+    public String getFormat() {
+        return fileFormat.name();
+    }
+
+    /**
+     * Renders the PlantUML diagram to this image.
+     *
+     * @param uml The PlantUML diagram to render.
+     * @return The number of bytes in the rendered image.
+     * @throws IOException if the image could not be written.
+     */
+    final long renderPlantuml(String uml) throws IOException {
         requireNonNull(uml, "PlantUML diagram is <null>.");
-        try (OutputStream imageOutput = new BufferedOutputStream(outputStreamSupplier.get())) {
+        try (ByteCountingOutputStream imageOutput = new ByteCountingOutputStream(
+                new BufferedOutputStream(outputStreamSupplier.get()))) {
             new SourceStringReader(filterBrokenLinks(uml)).outputImage(imageOutput, new FileFormatOption(fileFormat));
+            return imageOutput.count;
         }
     }
 
@@ -71,15 +97,15 @@ public class PlantumlImage {
     }
 
     private Optional<String> fixLink(String link) {
-        // HTML hasn't been generated yet, verify whether targeted .puml file exists instead
+        // HTML hasn't been generated yet, verify whether targeted .puml file exists or is being rendered instead
         String puml = link.replaceFirst("\\.html$", ".puml");
-        if (new File(file.getParent(), puml).exists()) {
+        if (isDiagram(new File(file.getParent(), puml))) {
             return Optional.of(link);
         } else if (config.images().directory().isPresent()) {
             String path = file.getName();
             path = path.replace('.', '/');
             for (int lastslash = path.lastIndexOf('/'); lastslash > 0; lastslash = path.lastIndexOf('/')) {
-                if (new File(config.destinationDirectory(), path + '/' + puml).exists()) {
+                if (isDiagram(new File(config.destinationDirectory(), path + '/' + puml))) {
                     String relative = FileUtils.relativePath(file, new File(config.destinationDirectory(), path + '/' + link));
                     return Optional.of(relative);
                 }
@@ -91,12 +117,16 @@ public class PlantumlImage {
         return Optional.empty();
     }
 
+    private boolean isDiagram(File pumlFile) {
+        return config.diagramManifest().isExpected(pumlFile) || pumlFile.exists();
+    }
+
     @Override
     public String toString() {
         return file.getName();
     }
 
-    private static Optional<FileFormat> fileFormatOf(File file) {
+    static Optional<FileFormat> fileFormatOf(File file) {
         if (file == null) return Optional.empty();
         FileFormat result = null;
         final String name = file.getName().toLowerCase();
@@ -106,9 +136,29 @@ public class PlantumlImage {
         return Optional.ofNullable(result);
     }
 
-    private static OutputStream createFileOutputStream(File file) {
+    private static final class ByteCountingOutputStream extends FilterOutputStream {
+        private long count = 0L;
+
+        private ByteCountingOutputStream(OutputStream delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static OutputStream createFileOutputStream(File file, boolean writeIfChanged) {
         try {
-            return new FileOutputStream(file);
+            return writeIfChanged ? new WriteIfChangedOutputStream(file) : new FileOutputStream(file);
         } catch (IOException ioe) {
             throw new IllegalStateException("Could not create writer to PlantUML image: " + file, ioe);
         }
@@ -16,11 +16,14 @@
 package nl.talsmasoftware.umldoclet.rendering.plantuml;
 
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.LayoutEngine;
 import nl.talsmasoftware.umldoclet.rendering.writers.StringBufferingWriter;
+import nl.talsmasoftware.umldoclet.rendering.writers.WriteIfChangedOutputStream;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
@@ -34,6 +37,9 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_RENDERED_IMAGE_FILE;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_UNCHANGED_IMAGE_FILE;
+import static nl.talsmasoftware.umldoclet.logging.Message.ERROR_COULDNT_RENDER_UML;
 import static nl.talsmasoftware.umldoclet.logging.Message.INFO_GENERATING_FILE;
 import static nl.talsmasoftware.umldoclet.logging.Message.WARNING_UNRECOGNIZED_IMAGE_FORMAT;
 
@@ -44,14 +50,30 @@ import static nl.talsmasoftware.umldoclet.logging.Message.WARNING_UNRECOGNIZED_I
  * @author Sjoerd Talsma
  */
 public class PlantumlImageWriter extends StringBufferingWriter {
+    /**
+     * Directive selecting the Smetana layout in the bundled PlantUML release
+     * (the {@code !pragma layout smetana} form is not recognized by it).
+     */
+    static final String SMETANA_PRAGMA = "!pragma graphviz_dot smetana";
+
+    /**
+     * Diagrams up to this number of lines are rendered by Smetana with the {@link LayoutEngine#AUTO AUTO} layout.
+     */
+    private static final int AUTO_SMETANA_MAX_LINES = 50;
 
     private final Configuration config;
     private final Collection<PlantumlImage> images;
+    /**
+     * The {@code .puml} output if it is only written when changed, otherwise {@code null}.
+     */
+    private final WriteIfChangedOutputStream changedPlantumlOutput;
 
-    private PlantumlImageWriter(Configuration config, Writer plantumlWriter, Iterable<PlantumlImage> images) {
+    private PlantumlImageWriter(Configuration config, Writer plantumlWriter, Iterable<PlantumlImage> images,
+                                WriteIfChangedOutputStream changedPlantumlOutput) {
         super(plantumlWriter);
         this.config = requireNonNull(config, "Configuration is <null>.");
         this.images = unmodifiableCopyOf(images);
+        this.changedPlantumlOutput = changedPlantumlOutput;
     }
 
     public static PlantumlImageWriter create(Configuration config, File plantumlFile, File... imageFiles) {
@@ -59,11 +81,14 @@ public class PlantumlImageWriter extends StringBufferingWriter {
         requireNonNull(plantumlFile, "PlantUML file is <null>.");
         try {
             Charset umlCharset = config.umlCharset();
-            OutputStreamWriter plantumlWriter = new OutputStreamWriter(new FileOutputStream(plantumlFile), umlCharset);
+            WriteIfChangedOutputStream changedOutput = config.writeIfChanged()
+                    ? new WriteIfChangedOutputStream(plantumlFile) : null;
+            OutputStream plantumlOutput = changedOutput != null ? changedOutput : new FileOutputStream(plantumlFile);
+            OutputStreamWriter plantumlWriter = new OutputStreamWriter(plantumlOutput, umlCharset);
             return new PlantumlImageWriter(config, plantumlWriter, Stream.of(imageFiles)
                     .map(file -> fileToImage(config, file))
                     .filter(Optional::isPresent).map(Optional::get)
-                    .collect(Collectors.toList()));
+                    .collect(Collectors.toList()), changedOutput);
         } catch (IOException ioe) {
             throw new IllegalStateException("Could not create writer to PlantUML file: " + plantumlFile, ioe);
         }
@@ -73,21 +98,82 @@ public class PlantumlImageWriter extends StringBufferingWriter {
      * Closes the delegate writer and tries to generate an image file for each configured image format.
      * The default file extension from the image format is used, together with the specified <code>directory</code>
      * and <code>baseName</code>.
+     * <p>
+     * If the {@linkplain Configuration#imageRenderQueue() image render queue} is batched, the images are rendered
+     * in the background. Rendering errors are then logged instead of thrown,
+     * and reported by {@link ImageRenderQueue#awaitCompletion()}.
+     * <p>
+     * If the {@code .puml} file is {@linkplain Configuration#writeIfChanged() only written when changed}
+     * and its content did not change, existing images are not rendered again.
      *
      * @throws IOException In case of I/O errors while closing the delegate writer or writing to an image file.
      */
     @Override
     public void close() throws IOException {
         super.close();
-        if (!images.isEmpty()) {
-            final String uml = getBuffer().toString();
-            for (PlantumlImage image : images) {
-                config.logger().info(INFO_GENERATING_FILE, image.getName());
-                image.renderPlantuml(uml);
-            }
+        if (isUnchanged()) {
+            images.forEach(image -> config.logger().debug(DEBUG_UNCHANGED_IMAGE_FILE, image.getName()));
+        } else if (!images.isEmpty()) {
+            final String uml = withLayoutEngine(getBuffer().toString());
+            final ImageRenderQueue renderQueue = config.imageRenderQueue();
+            if (renderQueue.isBatched()) renderQueue.submit(() -> config.logger().grouped(() -> renderImagesLoggingErrors(uml)));
+            else renderImages(uml);
         }
     }
 
+    /**
+     * @return Whether the {@code .puml} file was left unchanged and all images already exist.
+     */
+    private boolean isUnchanged() {
+        return changedPlantumlOutput != null && !changedPlantumlOutput.isWritten()
+                && images.stream().allMatch(PlantumlImage::exists);
+    }
+
+    private void renderImages(String uml) throws IOException {
+        for (PlantumlImage image : images) {
+            config.logger().info(INFO_GENERATING_FILE, image.getName());
+            final long start = System.nanoTime();
+            final long bytes = image.renderPlantuml(uml);
+            config.logger().debug(DEBUG_RENDERED_IMAGE_FILE,
+                    image.getName(), image.getFormat(), bytes, (System.nanoTime() - start) / 1_000_000L);
+        }
+    }
+
+    private boolean renderImagesLoggingErrors(String uml) {
+        try {
+            renderImages(uml);
+            return true;
+        } catch (IOException | RuntimeException renderError) {
+            config.logger().error(ERROR_COULDNT_RENDER_UML, images, renderError);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the {@code smetana} layout pragma to the diagram if the configured layout engine calls for it.
+     * <p>
+     * This only affects the rendered images; the written {@code .puml} file is left unchanged.
+     *
+     * @param uml The PlantUML diagram source.
+     * @return The diagram source to render the images from.
+     */
+    private String withLayoutEngine(String uml) {
+        final LayoutEngine layoutEngine = config.images().layoutEngine();
+        final boolean smetana = LayoutEngine.SMETANA.equals(layoutEngine)
+                || (LayoutEngine.AUTO.equals(layoutEngine) && lineCount(uml) <= AUTO_SMETANA_MAX_LINES);
+        final int start = uml.indexOf("@startuml");
+        final int endOfLine = start < 0 ? -1 : uml.indexOf('\n', start);
+        if (!smetana || endOfLine < 0) return uml;
+        final String newline = endOfLine > 0 && uml.charAt(endOfLine - 1) == '\r' ? "\r\n" : "\n";
+        return uml.substring(0, endOfLine + 1) + SMETANA_PRAGMA + newline + uml.substring(endOfLine + 1);
+    }
+
+    private static int lineCount(String uml) {
+        int count = 0;
+        for (int idx = uml.indexOf('\n'); idx >= 0; idx = uml.indexOf('\n', idx + 1)) count++;
+        return count;
+    }
+
     /**
      * @return String representation providing information about which image file(s) will be generated.
      */
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.plantuml;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.LayoutEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_PHASE_DURATION;
+
+/**
+ * Renders a tiny synthetic diagram in the background,
+ * so PlantUML is loaded and initialized before the first real diagram needs to be rendered.
+ * <p>
+ * The warm-up renders to memory only, using the first configured image format and layout engine.
+ * With the {@link LayoutEngine#AUTO AUTO} layout engine, the in-process Smetana layout is warmed up.
+ * Its duration is logged as the {@code plantuml-warmup} phase.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class PlantumlWarmup implements Runnable {
+    static final String PHASE = "plantuml-warmup";
+    private static final String WARMUP_UML = "@startuml\nclass A\nclass B\nA <|-- B\n@enduml\n";
+
+    private final Configuration config;
+
+    private PlantumlWarmup(Configuration config) {
+        this.config = requireNonNull(config, "Configuration is <null>.");
+    }
+
+    /**
+     * Starts warming up PlantUML in a background thread.
+     *
+     * @param config The configuration to warm up the image rendering for.
+     * @return The started warm-up thread.
+     */
+    public static Thread start(Configuration config) {
+        Thread warmupThread = new Thread(new PlantumlWarmup(config), "umldoclet-plantuml-warmup");
+        warmupThread.setDaemon(true);
+        warmupThread.start();
+        return warmupThread;
+    }
+
+    /**
+     * Waits a limited time for the warm-up to finish, so it does not outlive the doclet run it was started for.
+     * A warm-up that is still running after the timeout is interrupted.
+     *
+     * @param warmupThread  The warm-up thread (optional).
+     * @param timeoutMillis The maximum number of milliseconds to wait.
+     */
+    public static void awaitCompletion(Thread warmupThread, long timeoutMillis) {
+        if (warmupThread != null) try {
+            warmupThread.join(timeoutMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (warmupThread.isAlive()) warmupThread.interrupt();
+        }
+    }
+
+    /**
+     * @param layoutEngine The configured layout engine.
+     * @return The diagram to warm up the layout engine with.
+     */
+    static String warmupUml(LayoutEngine layoutEngine) {
+        return LayoutEngine.SMETANA.equals(layoutEngine) || LayoutEngine.AUTO.equals(layoutEngine)
+                ? WARMUP_UML.replaceFirst("\n", "\n" + PlantumlImageWriter.SMETANA_PRAGMA + "\n")
+                : WARMUP_UML;
+    }
+
+    @Override
+    public void run() {
+        final Optional<FileFormat> fileFormat = config.images().formats().stream()
+                .map(format -> PlantumlImage.fileFormatOf(new File("warmup." + format.toLowerCase())))
+                .filter(Optional::isPresent).map(Optional::get)
+                .findFirst();
+        if (fileFormat.isPresent()) {
+            final long start = System.nanoTime();
+            try {
+                final String uml = warmupUml(config.images().layoutEngine());
+                new SourceStringReader(uml).outputImage(new ByteArrayOutputStream(), new FileFormatOption(fileFormat.get()));
+            } catch (IOException | RuntimeException warmupFailure) {
+                // Warming up is best-effort only; real rendering errors are reported when rendering the diagrams.
+            }
+            config.logger().debug(DEBUG_PHASE_DURATION, PHASE, (System.nanoTime() - start) / 1_000_000L);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.writers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Per-thread pool of reusable {@link StringBuilder} buffers for rendering temporary strings.
+ * <p>
+ * Buffers must be {@linkplain #release(StringBuilder) released} after use, preferably in a {@code finally} block.
+ * Nested use on the same thread is supported; each {@link #acquire()} returns a different buffer
+ * until it is released again.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class StringBuilderPool {
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private static final ThreadLocal<Deque<StringBuilder>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private StringBuilderPool() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Acquires an empty buffer for the current thread.
+     *
+     * @return An empty buffer that should be released after use.
+     */
+    public static StringBuilder acquire() {
+        StringBuilder buffer = POOL.get().pollFirst();
+        return buffer != null ? buffer : new StringBuilder(128);
+    }
+
+    /**
+     * Releases the buffer to the pool of the current thread, so it can be reused.
+     * <p>
+     * Buffers that grew exceptionally large are not retained.
+     *
+     * @param buffer The buffer to release (optional, {@code null} is ignored).
+     */
+    public static void release(StringBuilder buffer) {
+        if (buffer != null && buffer.capacity() <= MAX_RETAINED_CAPACITY) {
+            final Deque<StringBuilder> pool = POOL.get();
+            if (pool.size() < MAX_POOLED_BUFFERS) {
+                buffer.setLength(0);
+                pool.addFirst(buffer);
+            }
+        }
+    }
+
+}
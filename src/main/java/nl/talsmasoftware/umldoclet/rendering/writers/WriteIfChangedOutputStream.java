@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.writers;
+
+import nl.talsmasoftware.umldoclet.util.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output stream that buffers all written bytes and only writes them to the target file when it is closed
+ * <strong>and</strong> the content differs from what the file already contains.
+ * <p>
+ * Unchanged files are therefore neither truncated nor rewritten, leaving their modification time untouched.
+ * This keeps incremental deployments (e.g. {@code rsync} or CDN caches) from re-uploading identical diagrams.
+ *
+ * @author Sjoerd Talsma
+ */
+public class WriteIfChangedOutputStream extends ByteArrayOutputStream {
+
+    private final File file;
+    private boolean closed = false, written = false;
+
+    /**
+     * Constructor. Creates a new buffering stream for the specified file.
+     *
+     * @param file The file to write to when the content has changed.
+     * @throws FileNotFoundException if the file exists but is a directory rather than a regular file.
+     */
+    public WriteIfChangedOutputStream(File file) throws FileNotFoundException {
+        super(8192);
+        this.file = requireNonNull(file, "File to write to is <null>.");
+        if (file.isDirectory()) throw new FileNotFoundException(file + " is a directory.");
+    }
+
+    /**
+     * @return Whether the file was actually (re)written when this stream was closed.
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Compares the buffered content with the existing file and only writes it if it has changed.
+     *
+     * @throws IOException if the existing file could not be read or the new content could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (!FileUtils.hasSameContent(file, buf, count)) {
+                try (OutputStream out = new FileOutputStream(file)) {
+                    writeTo(out);
+                }
+                written = true;
+            }
+        }
+    }
+
+    /**
+     * @return The name of this class plus the target file.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + file + '}';
+    }
+
+}
@@ -46,6 +46,11 @@ public class ClassDiagram extends UMLDiagram {
         super.addChild(child);
     }
 
+    @Override
+    Symbol diagramPackage() {
+        return type.getNamespace().symbol;
+    }
+
     @Override
     protected File pumlFile() {
         if (pumlFile == null) {
@@ -53,7 +58,7 @@ public class ClassDiagram extends UMLDiagram {
             if (result.length() > 0 && result.charAt(result.length() - 1) != '/') result.append('/');
             String containingPackage = type.getNamespace().name;
             result.append(containingPackage.replace('.', '/')).append('/');
-            if (type.name.qualified.startsWith(containingPackage + ".")) {
+            if (type.getNamespace().contains(type.name)) {
                 result.append(type.name.qualified.substring(containingPackage.length() + 1));
             } else {
                 result.append(type.name.simple);
@@ -63,4 +68,11 @@ public class ClassDiagram extends UMLDiagram {
         return pumlFile;
     }
 
+    @Override
+    protected File htmlFile() {
+        final File puml = pumlFile();
+        final String name = puml.getName();
+        return new File(puml.getParentFile(), name.substring(0, name.length() - ".puml".length()) + ".html");
+    }
+
 }
@@ -15,7 +15,7 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
 /**
  * Model object for a Field in an UML class.
@@ -38,8 +38,8 @@ public class Field extends TypeMember {
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-        if (getConfiguration().fields().include(visibility)) super.writeTo(output);
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+        if (context.fields().include(visibility)) super.writeTo(output, context);
         return output;
     }
 
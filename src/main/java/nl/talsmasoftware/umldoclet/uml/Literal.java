@@ -15,7 +15,7 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
 /**
  * A literal piece of UML.
@@ -42,7 +42,7 @@ public class Literal extends UMLPart {
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
         output.append(content);
         return output;
     }
@@ -53,8 +53,8 @@ public class Literal extends UMLPart {
         }
 
         @Override
-        public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-            super.writeTo(output).newline();
+        public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+            super.writeTo(output, context).newline();
             return output;
         }
 
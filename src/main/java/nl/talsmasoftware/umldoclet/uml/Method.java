@@ -15,12 +15,9 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
 
-import java.util.Objects;
-
-import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -39,7 +36,7 @@ public class Method extends TypeMember {
                    String name, Parameters parameters, TypeName returnType) {
         super(containingType, visibility, isAbstract, isStatic, isDeprecated, name, returnType);
         this.parameters = requireNonNull(parameters, () -> "No parameters for method " + containingType.name + "." + name);
-        this.parameters.setMethod(this);
+        this.parameters.setParent(this);
     }
 
     public Method deprecated() {
@@ -47,35 +44,34 @@ public class Method extends TypeMember {
     }
 
     @Override
-    protected <IPW extends IndentingPrintWriter> IPW writeParametersTo(IPW output) {
-        return parameters.writeTo(output);
+    protected UMLEmitter writeParametersTo(UMLEmitter output, RenderContext context) {
+        return parameters.writeTo(output, context);
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-        if (getConfiguration().methods().include(visibility)) super.writeTo(output);
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+        if (context.methods().include(visibility)) super.writeTo(output, context);
         return output;
     }
 
     @Override
-    protected <IPW extends IndentingPrintWriter> IPW writeTypeTo(IPW output) {
-        TypeDisplay returnTypeDisplay = getConfiguration().methods().returnType();
+    protected UMLEmitter writeTypeTo(UMLEmitter output, RenderContext context) {
+        TypeDisplay returnTypeDisplay = context.methods().returnType();
         if (type != null && !TypeDisplay.NONE.equals(returnTypeDisplay)) {
-            output.append(": ").append(type.toUml(returnTypeDisplay, null));
+            type.writeTo(output.append(": "), returnTypeDisplay, null);
         }
         return output;
     }
 
     @Override
     public int compareTo(TypeMember other) {
-        return comparing(super::compareTo)
-                .thenComparing(method -> ((Method) method).parameters)
-                .compare(this, other);
+        final int delta = super.compareTo(other);
+        return delta != 0 || !(other instanceof Method) ? delta : parameters.compareTo(((Method) other).parameters);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), parameters);
+        return 31 * super.hashCode() + parameters.hashCode();
     }
 
 }
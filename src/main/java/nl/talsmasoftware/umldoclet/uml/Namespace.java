@@ -15,8 +15,7 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingRenderer;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,21 +30,15 @@ import static java.util.Objects.requireNonNull;
  * @author Sjoerd Talsma
  */
 public class Namespace extends UMLPart implements Comparable<Namespace> {
-    public interface NameSpaceAware extends IndentingRenderer {
-        default <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-            return writeTo(output, null);
-        }
-
-        <IPW extends IndentingPrintWriter> IPW writeTo(IPW output, Namespace namespace);
-    }
-
     public final String name;
+    final Symbol symbol;
     private final Collection<UMLPart> children = new ArrayList<>();
 
     public Namespace(UMLDiagram diagram, String name) {
         super(diagram);
         this.name = requireNonNull(name, "Package name is <null>.").trim();
         if (this.name.isEmpty()) throw new IllegalArgumentException("Package name is empty.");
+        this.symbol = Symbol.of(this.name);
     }
 
     @Override
@@ -53,42 +46,44 @@ public class Namespace extends UMLPart implements Comparable<Namespace> {
         return children;
     }
 
+    /**
+     * Writes the namespace with its children.
+     * <p>
+     * The children are written {@link RenderContext#inNamespace(Namespace) in this namespace}.
+     * A nested namespace is named relative to the namespace of the context it is written in.
+     *
+     * @param output  The emitter to write the namespace to.
+     * @param context The context to write the namespace in.
+     * @return A reference to the output for method chaining purposes.
+     */
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeChildrenTo(IPW output) {
-        final IndentingPrintWriter indented = output.indent();
-        getChildren().forEach(child -> { // TODO: This works only one-level deep, maybe keep the Namespace in a TL var?
-            if (child instanceof NameSpaceAware) ((NameSpaceAware) child).writeTo(indented, this);
-            else child.writeTo(indented);
-        });
-        return output;
-    }
-
-    @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-        output.append("namespace").whitespace().append(name).whitespace().append('{').newline();
-        writeChildrenTo(output);
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+        final Namespace enclosing = context.namespace();
+        output.append("namespace").whitespace()
+                .append(name, symbol.relativeNameStart(enclosing == null ? null : enclosing.symbol), name.length())
+                .whitespace().append('{').newline();
+        writeChildrenTo(output, context.inNamespace(this));
         output.append('}').newline();
         return output;
     }
 
     public boolean contains(TypeName typeName) {
-        return typeName != null && typeName.qualified.startsWith(this.name + ".");
+        return typeName != null && typeName.symbol.isWithin(symbol);
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return symbol.hashCode();
     }
 
     @Override
     public int compareTo(Namespace other) {
         requireNonNull(other, "Cannot compare with namespace <null>.");
-        int diff = name.compareToIgnoreCase(other.name);
-        return diff == 0 ? name.compareTo(other.name) : diff;
+        return symbol.compareTo(other.symbol);
     }
 
     @Override
     public boolean equals(Object other) {
-        return this == other || (other instanceof Namespace && this.compareTo((Namespace) other) == 0);
+        return this == other || (other instanceof Namespace && symbol == ((Namespace) other).symbol);
     }
 }
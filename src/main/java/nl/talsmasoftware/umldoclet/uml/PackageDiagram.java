@@ -28,11 +28,18 @@ import static java.util.Objects.requireNonNull;
 public class PackageDiagram extends UMLDiagram {
 
     final String packageName;
+    final Symbol packageSymbol;
     private File pumlFile = null;
 
     public PackageDiagram(Configuration config, String packageName) {
         super(config);
         this.packageName = requireNonNull(packageName, "Package name is <null>.");
+        this.packageSymbol = Symbol.of(packageName);
+    }
+
+    @Override
+    Symbol diagramPackage() {
+        return packageSymbol;
     }
 
     @Override
@@ -47,4 +54,9 @@ public class PackageDiagram extends UMLDiagram {
         return pumlFile;
     }
 
+    @Override
+    protected File htmlFile() {
+        return new File(pumlFile().getParentFile(), "package-summary.html");
+    }
+
 }
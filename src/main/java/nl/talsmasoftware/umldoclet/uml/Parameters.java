@@ -15,7 +15,7 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 import nl.talsmasoftware.umldoclet.configuration.MethodConfig;
 import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
 
@@ -30,21 +30,11 @@ public class Parameters extends UMLPart implements Comparable<Parameters> {
 
     private final List<Parameter> params = new ArrayList<>();
     private boolean varargs = false;
-    private Method method;
 
     public Parameters() {
         super(null);
     }
 
-    void setMethod(Method method) {
-        this.method = method; // TODO: refactor this 'hack' away!
-    }
-
-    @Override
-    protected UMLPart requireParent() {
-        return method == null ? super.requireParent() : method;
-    }
-
     @Override
     public Collection<? extends Parameter> getChildren() {
         return params;
@@ -61,16 +51,16 @@ public class Parameters extends UMLPart implements Comparable<Parameters> {
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
-        return writeChildrenTo(output);
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+        return writeChildrenTo(output, context);
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeChildrenTo(IPW output) {
+    public UMLEmitter writeChildrenTo(UMLEmitter output, RenderContext context) {
         output.append('(');
         String sep = "";
         for (Parameter param : getChildren()) {
-            param.writeTo(output.append(sep));
+            param.writeTo(output.append(sep), context);
             sep = ", ";
         }
         output.append(')');
@@ -97,17 +87,21 @@ public class Parameters extends UMLPart implements Comparable<Parameters> {
         }
 
         @Override
-        public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
+        public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
             String sep = "";
-            MethodConfig methodConfig = getConfiguration().methods();
+            MethodConfig methodConfig = context.methods();
             if (name != null && MethodConfig.ParamNames.BEFORE_TYPE.equals(methodConfig.paramNames())) {
                 output.append(name);
                 sep = ": ";
             }
             if (type != null && !TypeDisplay.NONE.equals(methodConfig.paramTypes())) {
-                String typeUml = type.toUml(methodConfig.paramTypes(), null);
-                if (varargs && typeUml.endsWith("[]")) typeUml = typeUml.substring(0, typeUml.length() - 2) + "...";
-                output.append(sep).append(typeUml);
+                if (varargs) {
+                    String typeUml = type.toUml(methodConfig.paramTypes(), null);
+                    if (typeUml.endsWith("[]")) typeUml = typeUml.substring(0, typeUml.length() - 2) + "...";
+                    output.append(sep).append(typeUml);
+                } else {
+                    type.writeTo(output.append(sep), methodConfig.paramTypes(), null);
+                }
                 sep = ": ";
             }
             if (name != null && MethodConfig.ParamNames.AFTER_TYPE.equals(methodConfig.paramNames())) {
@@ -15,10 +15,9 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
-import nl.talsmasoftware.umldoclet.uml.Namespace.NameSpaceAware;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
+import nl.talsmasoftware.umldoclet.rendering.writers.StringBuilderPool;
 
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -44,7 +43,7 @@ import static java.util.stream.Collectors.joining;
  *
  * @author Sjoerd Talsma
  */
-public class Reference extends UMLPart implements NameSpaceAware {
+public class Reference extends UMLPart {
 
     public final Side from, to;
     public final String type;
@@ -75,7 +74,7 @@ public class Reference extends UMLPart implements NameSpaceAware {
     }
 
     public boolean isSelfReference() {
-        return from.qualifiedName.equals(to.qualifiedName);
+        return from.symbol == to.symbol;
     }
 
     public Reference addNote(final String note) {
@@ -104,7 +103,9 @@ public class Reference extends UMLPart implements NameSpaceAware {
                 ? inverse() : this;
     }
 
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output, Namespace namespace) {
+    @Override
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+        final Namespace namespace = context.namespace();
         output.append(from.toString(namespace)).whitespace()
                 .append(type).whitespace()
                 .append(to.toString(namespace));
@@ -140,7 +141,12 @@ public class Reference extends UMLPart implements NameSpaceAware {
 
     @Override
     public String toString() {
-        return writeTo(new StringWriter()).toString();
+        final StringBuilder buffer = StringBuilderPool.acquire();
+        try {
+            return writeTo(buffer).toString();
+        } finally {
+            StringBuilderPool.release(buffer);
+        }
     }
 
     private String reverseType() {
@@ -163,6 +169,7 @@ public class Reference extends UMLPart implements NameSpaceAware {
     public static final class Side {
         private final boolean nameFirst;
         public final String qualifiedName, cardinality;
+        private final Symbol symbol;
 
         public static Side from(String fromQualifiedName) {
             return from(fromQualifiedName, null);
@@ -184,34 +191,31 @@ public class Reference extends UMLPart implements NameSpaceAware {
             requireNonNull(qualifiedName, "Name of referred object is <null>.");
             int genericIdx = qualifiedName.indexOf('<');
             if (genericIdx > 0) qualifiedName = qualifiedName.substring(0, genericIdx);
-            this.qualifiedName = qualifiedName.trim();
+            this.symbol = Symbol.of(qualifiedName.trim());
+            this.qualifiedName = symbol.name;
             if (this.qualifiedName.isEmpty()) throw new IllegalArgumentException("Name of referred object is empty.");
             this.cardinality = cardinality == null ? "" : cardinality.trim();
             this.nameFirst = nameFirst;
         }
 
         private boolean matches(TypeName typeName) {
-            return typeName != null && this.qualifiedName.equals(typeName.qualified);
+            return typeName != null && this.symbol == typeName.symbol;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(qualifiedName, cardinality);
+            return Objects.hash(symbol, cardinality);
         }
 
         @Override
         public boolean equals(Object other) {
             return this == other || (other instanceof Side
-                    && this.qualifiedName.equals(((Side) other).qualifiedName)
+                    && this.symbol == ((Side) other).symbol
                     && this.cardinality.equals(((Side) other).cardinality));
         }
 
         public String toString(Namespace namespace) {
-            String name = qualifiedName;
-            if (namespace != null && name.startsWith(namespace.name + ".")) {
-                name = name.substring(namespace.name.length() + 1);
-                if (name.indexOf('.') > 0) name = qualifiedName;
-            }
+            final String name = namespace != null && symbol.prefix() == namespace.symbol ? symbol.simpleName : qualifiedName;
             return cardinality.isEmpty() ? name
                     : nameFirst ? name + " \"" + cardinality + '"'
                     : '"' + cardinality + "\" " + name;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.FieldConfig;
+import nl.talsmasoftware.umldoclet.configuration.MethodConfig;
+import nl.talsmasoftware.umldoclet.rendering.FragmentCache;
+import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Everything a {@link UMLPart} needs to know about its surroundings while it is being written:
+ * the diagram and its configuration, the enclosing namespace and the indentation.
+ * <p>
+ * The context is determined once per rendering and passed down to the children,
+ * so rendering a part does not have to look up its diagram or configuration through its parents.
+ * A part within a namespace is written with a context {@link #inNamespace(Namespace) for that namespace}.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class RenderContext {
+
+    private final UMLDiagram diagram;
+    private final Namespace namespace;
+    private final Indentation indentation;
+    private final Symbol diagramPackage;
+    private final FieldConfig fields;
+    private final MethodConfig methods;
+    private final FragmentCache fragmentCache;
+
+    private RenderContext(UMLDiagram diagram, Namespace namespace) {
+        this.diagram = diagram;
+        this.namespace = namespace;
+        final Configuration config = diagram == null ? null : diagram.config;
+        this.indentation = config == null ? Indentation.DEFAULT : config.indentation();
+        this.diagramPackage = diagram == null ? null : diagram.diagramPackage();
+        this.fields = config == null ? null : config.fields();
+        this.methods = config == null ? null : config.methods();
+        this.fragmentCache = config == null ? null : config.fragmentCache();
+    }
+
+    private RenderContext(RenderContext parent, Namespace namespace) {
+        this.diagram = parent.diagram;
+        this.namespace = namespace;
+        this.indentation = parent.indentation;
+        this.diagramPackage = parent.diagramPackage;
+        this.fields = parent.fields;
+        this.methods = parent.methods;
+        this.fragmentCache = parent.fragmentCache;
+    }
+
+    /**
+     * Determines the context to write the specified part in, by looking up the diagram it belongs to.
+     *
+     * @param part The part to be written.
+     * @return The render context for the part (without namespace).
+     */
+    static RenderContext of(UMLPart part) {
+        UMLPart current = part;
+        while (current != null && !(current instanceof UMLDiagram)) current = current.getParent();
+        return new RenderContext((UMLDiagram) current, null);
+    }
+
+    /**
+     * @param namespace The namespace to write the parts in.
+     * @return A context for writing parts within the namespace.
+     */
+    RenderContext inNamespace(Namespace namespace) {
+        return namespace == this.namespace ? this : new RenderContext(this, namespace);
+    }
+
+    /**
+     * @return The namespace being written, or {@code null} if not written within a namespace.
+     */
+    public Namespace namespace() {
+        return namespace;
+    }
+
+    /**
+     * @return The indentation the diagram is written with.
+     */
+    public Indentation indentation() {
+        return indentation;
+    }
+
+    /**
+     * @return The package of the diagram (relative links are resolved against it), or {@code null} if unknown.
+     */
+    public Symbol diagramPackage() {
+        return diagramPackage;
+    }
+
+    /**
+     * @return The field configuration of the diagram.
+     */
+    public FieldConfig fields() {
+        return requireNonNull(fields, "No diagram to obtain field configuration from.");
+    }
+
+    /**
+     * @return The method configuration of the diagram.
+     */
+    public MethodConfig methods() {
+        return requireNonNull(methods, "No diagram to obtain method configuration from.");
+    }
+
+    /**
+     * @return The cache of rendered fragments, or {@code null} if rendered fragments are not cached.
+     */
+    public FragmentCache fragmentCache() {
+        return fragmentCache;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{diagram=" + (diagram == null ? null : diagram.getClass().getSimpleName())
+                + ", namespace=" + (namespace == null ? null : namespace.name) + '}';
+    }
+
+}
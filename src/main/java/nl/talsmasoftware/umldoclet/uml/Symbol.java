@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Qualified name, interned in a symbol table that is shared by all UML model objects.
+ * <p>
+ * Each distinct qualified name is represented by exactly one symbol with a compact numeric id,
+ * so equality and hashing are identity and integer operations.
+ * The symbol also precomputes its package prefix (itself a symbol) and its simple name,
+ * turning namespace membership into a walk over the prefix symbols instead of string matching.
+ * <p>
+ * The table only references its symbols weakly: a symbol stays interned as long as it is used by a model object.
+ * Symbols of a finished javadoc run can therefore be garbage collected,
+ * also when javadoc is run repeatedly from the same process.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class Symbol implements Comparable<Symbol> {
+    static final ConcurrentMap<String, SymbolReference> TABLE = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Symbol> RELEASED = new ReferenceQueue<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+
+    /**
+     * The compact id of this symbol.
+     */
+    public final int id;
+
+    /**
+     * The (interned) qualified name.
+     */
+    public final String name;
+
+    /**
+     * The part of the name after the last dot.
+     */
+    public final String simpleName;
+
+    private final Symbol prefix;
+    private final String lowerCaseName;
+
+    private Symbol(int id, String name, Symbol prefix) {
+        this.id = id;
+        this.name = name;
+        this.prefix = prefix;
+        this.simpleName = prefix == null ? name : name.substring(prefix.name.length() + 1);
+        this.lowerCaseName = name.toLowerCase();
+    }
+
+    /**
+     * Returns the symbol for the qualified name, adding it to the symbol table if necessary.
+     *
+     * @param qualifiedName The qualified name (required).
+     * @return The interned symbol for the name.
+     */
+    public static Symbol of(String qualifiedName) {
+        Symbol symbol = lookup(requireNonNull(qualifiedName, "Qualified name is <null>."));
+        if (symbol == null) {
+            removeReleasedSymbols();
+            final int dot = qualifiedName.lastIndexOf('.');
+            final Symbol prefix = dot > 0 ? of(qualifiedName.substring(0, dot)) : null;
+            while (symbol == null) {
+                final SymbolReference existing = TABLE.get(qualifiedName);
+                symbol = existing == null ? null : existing.get();
+                if (symbol == null) {
+                    final Symbol created = new Symbol(NEXT_ID.getAndIncrement(), qualifiedName, prefix);
+                    final SymbolReference reference = new SymbolReference(created);
+                    if (existing == null ? TABLE.putIfAbsent(qualifiedName, reference) == null
+                            : TABLE.replace(qualifiedName, existing, reference)) {
+                        symbol = created;
+                    }
+                }
+            }
+        }
+        return symbol;
+    }
+
+    private static Symbol lookup(String qualifiedName) {
+        final SymbolReference reference = TABLE.get(qualifiedName);
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Removes the table entries of symbols that were garbage collected.
+     * An entry is only removed if it was not replaced by a new symbol for the same name in the meantime.
+     */
+    static void removeReleasedSymbols() {
+        for (Object released = RELEASED.poll(); released != null; released = RELEASED.poll()) {
+            TABLE.remove(((SymbolReference) released).name, released);
+        }
+    }
+
+    /**
+     * @return The symbol of the name before the last dot, or {@code null} if the name contains no dot.
+     */
+    public Symbol prefix() {
+        return prefix;
+    }
+
+    /**
+     * Determines whether this name is contained in the namespace,
+     * i.e. whether the name starts with the namespace name followed by a dot.
+     *
+     * @param namespace The namespace symbol.
+     * @return Whether this name lies within the namespace.
+     */
+    public boolean isWithin(Symbol namespace) {
+        for (Symbol outer = prefix; outer != null; outer = outer.prefix) {
+            if (outer == namespace) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index in the {@link #name} where the name relative to the namespace starts,
+     * e.g. the index of {@code Outer.Inner} in {@code a.b.Outer.Inner} for namespace {@code a.b}.
+     *
+     * @param namespace The namespace symbol (optional).
+     * @return The start of the relative name, or {@code 0} if this name does not lie within the namespace.
+     */
+    public int relativeNameStart(Symbol namespace) {
+        return namespace != null && isWithin(namespace) ? namespace.name.length() + 1 : 0;
+    }
+
+    /**
+     * Compares symbols case-insensitively first, then case-sensitively.
+     *
+     * @param other The symbol to compare with.
+     * @return The comparison result.
+     */
+    @Override
+    public int compareTo(Symbol other) {
+        if (this == requireNonNull(other, "Cannot compare with symbol <null>.")) return 0;
+        final int delta = lowerCaseName.compareTo(other.lowerCaseName);
+        return delta != 0 ? delta : name.compareTo(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Weak reference to an interned symbol, remembering the name to remove it from the table once released.
+     */
+    static final class SymbolReference extends WeakReference<Symbol> {
+        private final String name;
+
+        private SymbolReference(Symbol symbol) {
+            super(symbol, RELEASED);
+            this.name = symbol.name;
+        }
+    }
+
+}
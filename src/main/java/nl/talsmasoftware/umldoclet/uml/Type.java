@@ -16,17 +16,15 @@
 package nl.talsmasoftware.umldoclet.uml;
 
 import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
-import nl.talsmasoftware.umldoclet.uml.Namespace.NameSpaceAware;
+import nl.talsmasoftware.umldoclet.rendering.FragmentCache;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
-public class Type extends UMLPart implements NameSpaceAware, Comparable<Type> {
+public class Type extends UMLPart implements Comparable<Type> {
     /**
      * Classification of a UML Type.
      *
@@ -40,33 +38,35 @@ public class Type extends UMLPart implements NameSpaceAware, Comparable<Type> {
         }
     }
 
+    private static final String ABSTRACT_MEMBERS = " (abstract)";
+
     private final Namespace namespace;
     private final Classification classfication;
     public final TypeName name;
     private final boolean isDeprecated, addPackageToName;
-    private final Set<UMLPart> children = new LinkedHashSet<>();
+    private final TypeChildren children;
 
     public Type(Namespace namespace, Classification classification, TypeName name) {
-        this(namespace, classification, name, false, false, null);
+        this(namespace, classification, name, false, false, new TypeChildren());
     }
 
     private Type(Namespace namespace, Classification classification, TypeName name, boolean isDeprecated,
-                 boolean addPackageToName, Collection<? extends UMLPart> children) {
+                 boolean addPackageToName, TypeChildren children) {
         super(namespace);
         this.namespace = requireNonNull(namespace, "Containing package is <null>.");
         this.classfication = requireNonNull(classification, "Type classification is <null>.");
         this.name = requireNonNull(name, "Type name is <null>.");
         this.isDeprecated = isDeprecated;
         this.addPackageToName = addPackageToName;
-        if (children != null) this.children.addAll(children);
+        this.children = children;
     }
 
     public Type deprecated() {
-        return new Type(getNamespace(), classfication, name, true, addPackageToName, children);
+        return new Type(getNamespace(), classfication, name, true, addPackageToName, children.share());
     }
 
     public Type addPackageToName() {
-        return new Type(getNamespace(), classfication, name, isDeprecated, true, children);
+        return new Type(getNamespace(), classfication, name, isDeprecated, true, children.share());
     }
 
     public Namespace getNamespace() {
@@ -82,49 +82,87 @@ public class Type extends UMLPart implements NameSpaceAware, Comparable<Type> {
         return children;
     }
 
+    /**
+     * Finds the members of this type with the specified kind and name.
+     *
+     * @param kind The kind of member to find (e.g. {@link Field} or {@link Method}).
+     * @param name The name of the members to find.
+     * @param <M>  The type of the members to find.
+     * @return The found members, in order of addition.
+     */
+    public <M extends TypeMember> List<M> findMembers(Class<M> kind, String name) {
+        return children.members(requireNonNull(kind, "Member kind is <null>."), name);
+    }
+
+    /**
+     * Removes the members of this type with the specified kind and name, without visiting the other children.
+     *
+     * @param kind The kind of member to remove (e.g. {@link Field} or {@link Method}).
+     * @param name The name of the members to remove.
+     * @return Whether any members were removed.
+     */
+    public boolean removeMembers(Class<? extends TypeMember> kind, String name) {
+        return children.removeMembers(requireNonNull(kind, "Member kind is <null>."), name);
+    }
+
+    /**
+     * Removes all children of this type except for its abstract members.
+     *
+     * @return Reference to this type for method chaining purposes.
+     */
+    public Type retainAbstractMembers() {
+        final String fragmentKey = children.fragmentKey();
+        if (children.removeIf(child -> !(child instanceof TypeMember) || !((TypeMember) child).isAbstract)
+                && fragmentKey != null) {
+            children.fragmentKey(fragmentKey + ABSTRACT_MEMBERS);
+        }
+        return this;
+    }
+
+    /**
+     * Marks the current members as the complete members of this type.
+     * <p>
+     * The rendered members are then {@linkplain FragmentCache cached} and reused by all diagrams
+     * containing this type with the same members.
+     * Modifying the members afterwards (except for {@link #retainAbstractMembers()}) disables the cache.
+     *
+     * @return Reference to this type for method chaining purposes.
+     */
+    public Type completeMembers() {
+        children.fragmentKey(name.qualified);
+        return this;
+    }
+
     @Override
     void setParent(UMLPart parent) {
         super.setParent(parent);
         if (namespace.getParent() == null) namespace.setParent(parent);
     }
 
-    private <IPW extends IndentingPrintWriter> IPW writeNameTo(IPW output, Namespace namespace) {
-        if (addPackageToName && name.qualified.startsWith(this.namespace.name + '.')) {
-            String nameInPackage = name.qualified.substring(this.namespace.name.length() + 1);
-            output.append("\"<size:14>").append(nameInPackage)
+    private UMLEmitter writeNameTo(UMLEmitter output, Namespace namespace) {
+        final int nameInPackage = name.symbol.relativeNameStart(this.namespace.symbol);
+        if (addPackageToName && nameInPackage > 0) {
+            output.append("\"<size:14>").append(name.qualified, nameInPackage, name.qualified.length())
                     .append("\\n<size:10>").append(this.namespace.name)
                     .append("\" as ");
         }
-        output.append(name.toUml(TypeDisplay.QUALIFIED, namespace));
-        return output;
+        return name.writeTo(output, TypeDisplay.QUALIFIED, namespace);
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output, Namespace namespace) {
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
         output.append(classfication.toUml()).whitespace();
-        writeNameTo(output, namespace).whitespace();
+        writeNameTo(output, context.namespace()).whitespace();
         if (isDeprecated) output.append("<<deprecated>>").whitespace();
-        writeLinkTo(output).whitespace();
-        writeChildrenTo(output).newline();
+        writeLinkTo(output, context.diagramPackage()).whitespace();
+        writeChildrenTo(output, context).newline();
         return output;
     }
 
-    private Optional<Namespace> diagramPackage() {
-        UMLDiagram diagram = getDiagram();
-        if (diagram instanceof PackageDiagram) {
-            return Optional.of(new Namespace(diagram, ((PackageDiagram) diagram).packageName));
-        } else if (diagram instanceof ClassDiagram) {
-            return Optional.of(((ClassDiagram) diagram).type.namespace);
-        }
-        return Optional.empty();
-    }
-
-    private <IPW extends IndentingPrintWriter> IPW writeLinkTo(IPW output) {
-        Optional<String> relativeNameToDiagram = diagramPackage()
-                .filter(ns -> name.qualified.startsWith(ns.name + '.'))
-                .map(ns -> name.qualified.substring(ns.name.length() + 1));
-        if (relativeNameToDiagram.isPresent()) {
-            output.append("[[").append(relativeNameToDiagram.get()).append(".html]]");
+    private UMLEmitter writeLinkTo(UMLEmitter output, Symbol diagramPackage) {
+        final int relativeNameToDiagram = name.symbol.relativeNameStart(diagramPackage);
+        if (relativeNameToDiagram > 0) {
+            output.append("[[").append(name.qualified, relativeNameToDiagram, name.qualified.length()).append(".html]]");
         } else {
             output.append("[[fqn:").append(name.qualified).append(".html]]");
         }
@@ -132,11 +170,28 @@ public class Type extends UMLPart implements NameSpaceAware, Comparable<Type> {
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeChildrenTo(IPW output) {
-        if (!children.isEmpty()) super.writeChildrenTo(output.append('{').newline()).append('}');
+    public UMLEmitter writeChildrenTo(UMLEmitter output, RenderContext context) {
+        if (!children.isEmpty()) {
+            final String fragmentKey = children.fragmentKey();
+            final FragmentCache cache = context.fragmentCache();
+            output.append('{').newline();
+            if (fragmentKey == null || cache == null) super.writeChildrenTo(output, context);
+            else output.append(cache.get(fragmentKey, () -> renderChildren(context)));
+            output.append('}');
+        }
         return output;
     }
 
+    /**
+     * Renders the children relative to the type, so the result can be appended at any indentation.
+     *
+     * @param context The render context.
+     * @return The rendered children.
+     */
+    private String renderChildren(RenderContext context) {
+        return super.writeChildrenTo(new UMLEmitter(context.indentation(), 256), context).toString();
+    }
+
     @Override
     public int hashCode() {
         return name.hashCode();
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * The children of a {@link Type}, in order of addition, with an index of the {@link TypeMember members} by name.
+ * <p>
+ * Duplicate children are ignored, just like a {@link LinkedHashSet}.
+ * Looking up or removing members by kind and name only visits members with that name,
+ * instead of all children of the type.
+ * Children removed through the {@link #iterator() iterator} are also removed from the index.
+ * <p>
+ * Derived types (e.g. {@link Type#deprecated()}) {@link #share() share} the children with the original type.
+ * The shared contents are only copied when either of them is modified afterwards (copy-on-write).
+ * <p>
+ * The contents can be marked with a {@link #fragmentKey() fragment key} identifying the rendered children
+ * across diagrams. Any modification of the children clears the fragment key.
+ *
+ * @author Sjoerd Talsma
+ */
+final class TypeChildren extends AbstractCollection<UMLPart> {
+
+    private Contents contents;
+    private boolean shared;
+
+    TypeChildren() {
+        this(new Contents(), false);
+    }
+
+    private TypeChildren(Contents contents, boolean shared) {
+        this.contents = contents;
+        this.shared = shared;
+    }
+
+    /**
+     * Shares the children with a derived type without copying them.
+     *
+     * @return Children with the same contents, copied only when either collection is modified.
+     */
+    TypeChildren share() {
+        shared = true;
+        return new TypeChildren(contents, true);
+    }
+
+    private Contents modifiable() {
+        if (shared) {
+            contents = new Contents(contents);
+            shared = false;
+        }
+        contents.fragmentKey = null;
+        return contents;
+    }
+
+    /**
+     * @return The key identifying the rendered children, or {@code null} if they should not be cached.
+     */
+    String fragmentKey() {
+        return contents.fragmentKey;
+    }
+
+    /**
+     * Marks the current children with a key identifying their rendering across diagrams.
+     *
+     * @param fragmentKey The key identifying the rendered children (optional).
+     */
+    void fragmentKey(String fragmentKey) {
+        contents.fragmentKey = fragmentKey;
+    }
+
+    /**
+     * Finds the members of the specified kind with the given name.
+     *
+     * @param kind The kind of member to find (e.g. {@link Field} or {@link Method}).
+     * @param name The name of the members to find.
+     * @param <M>  The type of the members to find.
+     * @return The found members, in order of addition.
+     */
+    <M extends TypeMember> List<M> members(Class<M> kind, String name) {
+        final List<TypeMember> named = contents.membersByName.get(name);
+        if (named == null) return emptyList();
+        final List<M> found = new ArrayList<>(named.size());
+        for (TypeMember member : named) if (kind.isInstance(member)) found.add(kind.cast(member));
+        return found;
+    }
+
+    /**
+     * Removes the members of the specified kind with the given name.
+     *
+     * @param kind The kind of member to remove (e.g. {@link Field} or {@link Method}).
+     * @param name The name of the members to remove.
+     * @return Whether any members were removed.
+     */
+    boolean removeMembers(Class<? extends TypeMember> kind, String name) {
+        return !members(kind, name).isEmpty() && modifiable().removeMembers(kind, name);
+    }
+
+    @Override
+    public boolean add(UMLPart child) {
+        return !contents.children.contains(child) && modifiable().add(child);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return contents.children.contains(other);
+    }
+
+    @Override
+    public boolean remove(Object other) {
+        return contains(other) && modifiable().remove(other);
+    }
+
+    @Override
+    public int size() {
+        return contents.children.size();
+    }
+
+    @Override
+    public Iterator<UMLPart> iterator() {
+        final Contents iterated = contents;
+        final Iterator<UMLPart> delegate = iterated.children.iterator();
+        return new Iterator<UMLPart>() {
+            private UMLPart current;
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public UMLPart next() {
+                return current = delegate.next();
+            }
+
+            @Override
+            public void remove() {
+                if (!shared && contents == iterated) {
+                    delegate.remove();
+                    iterated.fragmentKey = null;
+                    if (current instanceof TypeMember) iterated.unindex((TypeMember) current);
+                } else {
+                    // The iterated contents are (or were) shared; remove from our own copy instead.
+                    modifiable().remove(current);
+                }
+            }
+        };
+    }
+
+    /**
+     * The actual children and member index, possibly shared by multiple types.
+     */
+    private static final class Contents {
+        private final LinkedHashSet<UMLPart> children;
+        private final Map<String, List<TypeMember>> membersByName;
+        private String fragmentKey;
+
+        private Contents() {
+            children = new LinkedHashSet<>();
+            membersByName = new HashMap<>();
+        }
+
+        private Contents(Contents original) {
+            children = new LinkedHashSet<>(original.children);
+            membersByName = new HashMap<>(original.membersByName.size() * 4 / 3 + 1);
+            original.membersByName.forEach((name, members) -> membersByName.put(name, new ArrayList<>(members)));
+        }
+
+        private boolean add(UMLPart child) {
+            final boolean added = children.add(child);
+            if (added && child instanceof TypeMember) {
+                final TypeMember member = (TypeMember) child;
+                membersByName.computeIfAbsent(member.name, name -> new ArrayList<>(1)).add(member);
+            }
+            return added;
+        }
+
+        private boolean remove(Object other) {
+            if (other instanceof TypeMember) {
+                final List<TypeMember> named = membersByName.get(((TypeMember) other).name);
+                if (named != null) for (TypeMember member : named) {
+                    if (member.equals(other)) {
+                        children.remove(member);
+                        unindex(member);
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return children.remove(other);
+        }
+
+        private boolean removeMembers(Class<? extends TypeMember> kind, String name) {
+            final List<TypeMember> named = membersByName.get(name);
+            if (named == null) return false;
+            boolean removed = false;
+            for (Iterator<TypeMember> it = named.iterator(); it.hasNext(); ) {
+                TypeMember member = it.next();
+                if (kind.isInstance(member)) {
+                    children.remove(member);
+                    it.remove();
+                    removed = true;
+                }
+            }
+            if (named.isEmpty()) membersByName.remove(name);
+            return removed;
+        }
+
+        private void unindex(TypeMember member) {
+            final List<TypeMember> named = membersByName.get(member.name);
+            if (named != null) {
+                named.removeIf(indexed -> indexed == member);
+                if (named.isEmpty()) membersByName.remove(member.name);
+            }
+        }
+    }
+
+}
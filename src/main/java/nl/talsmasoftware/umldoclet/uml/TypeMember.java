@@ -15,9 +15,10 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
-import java.util.Objects;
+import java.util.Comparator;
 
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
@@ -28,12 +29,22 @@ import static java.util.Objects.requireNonNull;
  * @author Sjoerd Talsma
  */
 public abstract class TypeMember extends UMLPart implements Comparable<TypeMember> {
+    /**
+     * Orders members by kind first (fields before methods), then by name; case-insensitively before case-sensitively.
+     * <p>
+     * The compared keys are computed once when the member is created.
+     */
+    static final Comparator<TypeMember> BY_KIND_AND_NAME = comparing((TypeMember member) -> member.kind)
+            .thenComparing(member -> member.lowerCaseName)
+            .thenComparing(member -> member.name);
 
     protected final Type containingType;
     protected final Visibility visibility;
     public final boolean isAbstract, isStatic, isDeprecated;
     public final String name;
     protected final TypeName type;
+    private final String kind, lowerCaseName;
+    private final int hashCode;
 
     public TypeMember(Type containingType, Visibility visibility, boolean isAbstract, boolean isStatic,
                       boolean isDeprecated, String name, TypeName type) {
@@ -46,41 +57,41 @@ public abstract class TypeMember extends UMLPart implements Comparable<TypeMembe
         this.name = requireNonNull(name, "Member name is <null>.").trim();
         if (this.name.isEmpty()) throw new IllegalArgumentException("Member name is empty.");
         this.type = type;
+        this.kind = getClass().getSimpleName();
+        this.lowerCaseName = this.name.toLowerCase();
+        this.hashCode = 31 * containingType.hashCode() + this.name.hashCode();
     }
 
-    protected <IPW extends IndentingPrintWriter> IPW writeTypeTo(IPW output) {
-        if (type != null) output.append(": ").append(type.toString());
+    protected UMLEmitter writeTypeTo(UMLEmitter output, RenderContext context) {
+        if (type != null) type.writeTo(output.append(": "), TypeDisplay.SIMPLE, null);
         return output;
     }
 
-    protected <IPW extends IndentingPrintWriter> IPW writeParametersTo(IPW output) {
+    protected UMLEmitter writeParametersTo(UMLEmitter output, RenderContext context) {
         return output;
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
         if (isAbstract) output.append("{abstract}").whitespace();
         if (isStatic) output.append("{static}").whitespace();
         output.append(visibility.toUml());
         if (isDeprecated) output.append("--").append(name).append("--");
         else output.append(name);
-        writeParametersTo(output);
-        writeTypeTo(output);
+        writeParametersTo(output, context);
+        writeTypeTo(output, context);
         output.newline();
         return output;
     }
 
     @Override
     public int compareTo(TypeMember other) {
-        return comparing((TypeMember member) -> member.getClass().getSimpleName())
-                .thenComparing(member -> member.name.toLowerCase())
-                .thenComparing(member -> member.name)
-                .compare(this, other);
+        return BY_KIND_AND_NAME.compare(this, requireNonNull(other, "Cannot compare with member <null>."));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(containingType, name);
+        return hashCode;
     }
 
     @Override
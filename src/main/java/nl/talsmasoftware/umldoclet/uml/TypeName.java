@@ -16,10 +16,10 @@
 package nl.talsmasoftware.umldoclet.uml;
 
 import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
+import nl.talsmasoftware.umldoclet.rendering.writers.StringBuilderPool;
 
 import java.io.IOException;
 
-import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -36,11 +36,17 @@ import static java.util.Objects.requireNonNull;
  */
 public class TypeName implements Comparable<TypeName> {
     public final String simple, qualified;
+    final Symbol symbol;
     private final TypeName[] generics;
 
     public TypeName(String simpleName, String qualifiedName, TypeName... generics) {
+        this(simpleName, Symbol.of(qualifiedName), generics);
+    }
+
+    private TypeName(String simpleName, Symbol symbol, TypeName... generics) {
         this.simple = simpleName;
-        this.qualified = qualifiedName;
+        this.symbol = symbol;
+        this.qualified = symbol.name;
         this.generics = generics.clone();
     }
 
@@ -53,63 +59,90 @@ public class TypeName implements Comparable<TypeName> {
     }
 
     protected String toUml(TypeDisplay display, Namespace namespace) {
-        StringBuilder output = new StringBuilder();
-        if (display == null) display = TypeDisplay.SIMPLE;
-        if (!TypeDisplay.NONE.equals(display)) try {
+        final StringBuilder buffer = StringBuilderPool.acquire();
+        try {
+            return writeTo(buffer, display, namespace).toString();
+        } finally {
+            StringBuilderPool.release(buffer);
+        }
+    }
 
-            if (namespace != null && this.qualified.startsWith(namespace.name + ".")) {
-                String name = this.qualified.substring(namespace.name.length() + 1);
+    /**
+     * Writes the UML representation of this type name, including its generics, directly to the output.
+     *
+     * @param <A>       The type of output to write to.
+     * @param output    The output to write the type name to.
+     * @param display   How to display the type name (optional, defaults to {@link TypeDisplay#SIMPLE}).
+     * @param namespace The namespace the type name is written in (optional).
+     * @return A reference to the output for method chaining purposes.
+     */
+    protected final <A extends Appendable> A writeTo(A output, TypeDisplay display, Namespace namespace) {
+        try {
+            return writeUmlTo(output, display == null ? TypeDisplay.SIMPLE : display, namespace);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("I/O error writing type name \"" + qualified + "\" to the output: "
+                    + ioe.getMessage(), ioe);
+        }
+    }
+
+    <A extends Appendable> A writeUmlTo(A output, TypeDisplay display, Namespace namespace) throws IOException {
+        if (!TypeDisplay.NONE.equals(display)) {
+            if (namespace != null && symbol.isWithin(namespace.symbol)) {
                 // Workaround for PlantUML problem with namespace and inner classes
-                if (name.indexOf('.') > 0) name = this.qualified;
-                output.append(name);
+                if (symbol.prefix() == namespace.symbol) output.append(symbol.simpleName);
+                else output.append(qualified);
             } else if (isQualified(display)) {
                 output.append(this.qualified);
             } else {
                 output.append(this.simple);
             }
             writeGenericsTo(output, TypeDisplay.QUALIFIED_GENERICS.equals(display) ? display : TypeDisplay.SIMPLE);
-
-        } catch (IOException ioe) {
-            throw new IllegalStateException("I/O error writing type name \"" + qualified + "\" to the output: "
-                    + ioe.getMessage(), ioe);
         }
-        return output.toString();
+        return output;
     }
 
     private <A extends Appendable> A writeGenericsTo(A output, TypeDisplay genericDisplay) throws IOException {
         if (generics.length > 0) {
-            StringBuilder buffer = new StringBuilder();
-            String sep = "<";
+            output.append('<');
+            if (generics.length == 1 && generics[0].isMarkupTag(genericDisplay)) {
+                output.append('\u200B'); // Insert zero-width-space character between < and markup character.
+            }
+            String sep = "";
             for (TypeName generic : generics) {
-                buffer.append(sep).append(generic.toUml(genericDisplay, null));
+                generic.writeUmlTo(output.append(sep), genericDisplay, null);
                 sep = ", ";
             }
-            String res = buffer.toString();
-            if (isMarkupTag(res)) {
-                res = "<\u200B" + res.substring(1); // Insert zero-width-space character between < and markup character.
-            }
-            output.append(res).append(">");
+            output.append('>');
         }
         return output;
     }
 
-    private static boolean isMarkupTag(String value) {
-        return value.equalsIgnoreCase("<u")
-                || value.equalsIgnoreCase("<b")
-                || value.equalsIgnoreCase("<i");
+    /**
+     * Determines whether this type name would be rendered as a markup character ({@code u}, {@code b} or {@code i})
+     * when it is written as a generic type. PlantUML would interpret {@code <u>} etc. as markup tags.
+     * <p>
+     * Only plain type names without generics of their own can be rendered as a single character.
+     *
+     * @param display How this type name is displayed.
+     * @return Whether this type name is rendered as a markup character.
+     */
+    private boolean isMarkupTag(TypeDisplay display) {
+        if (getClass() != TypeName.class || generics.length > 0) return false;
+        final String value = isQualified(display) ? qualified : simple;
+        return value.equalsIgnoreCase("u")
+                || value.equalsIgnoreCase("b")
+                || value.equalsIgnoreCase("i");
     }
 
     @Override
     public int compareTo(TypeName other) {
         requireNonNull(other, "Cannot compare with type name <null>.");
-        return comparing((TypeName type) -> type.qualified.toLowerCase())
-                .thenComparing(type -> type.qualified)
-                .compare(this, other);
+        return symbol.compareTo(other.symbol);
     }
 
     @Override
     public int hashCode() {
-        return qualified.hashCode();
+        return symbol.hashCode();
     }
 
     @Override
@@ -124,7 +157,7 @@ public class TypeName implements Comparable<TypeName> {
 
     public static class Array extends TypeName {
         private Array(TypeName componentType) {
-            super(componentType.simple, componentType.qualified, componentType.generics);
+            super(componentType.simple, componentType.symbol, componentType.generics);
         }
 
         public static Array of(TypeName componentType) {
@@ -132,8 +165,9 @@ public class TypeName implements Comparable<TypeName> {
         }
 
         @Override
-        protected String toUml(TypeDisplay display, Namespace namespace) {
-            return super.toUml(display, namespace) + "[]";
+        <A extends Appendable> A writeUmlTo(A output, TypeDisplay display, Namespace namespace) throws IOException {
+            super.writeUmlTo(output, display, namespace).append("[]");
+            return output;
         }
     }
 
@@ -142,7 +176,7 @@ public class TypeName implements Comparable<TypeName> {
         private final boolean isExtends;
 
         private Variable(String variable, TypeName bound, boolean isExtends) {
-            super(bound.simple, bound.qualified, bound.generics);
+            super(bound.simple, bound.symbol, bound.generics);
             this.variable = variable;
             this.isExtends = isExtends;
         }
@@ -156,8 +190,9 @@ public class TypeName implements Comparable<TypeName> {
         }
 
         @Override
-        protected String toUml(TypeDisplay display, Namespace namespace) {
-            return String.format("%s %s %s", variable, isExtends ? "extends" : "super", super.toUml(display, namespace));
+        <A extends Appendable> A writeUmlTo(A output, TypeDisplay display, Namespace namespace) throws IOException {
+            output.append(variable).append(isExtends ? " extends " : " super ");
+            return super.writeUmlTo(output, display, namespace);
         }
 
         @Override
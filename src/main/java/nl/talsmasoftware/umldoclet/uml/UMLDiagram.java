@@ -16,19 +16,21 @@
 package nl.talsmasoftware.umldoclet.uml;
 
 import nl.talsmasoftware.umldoclet.logging.Logger;
-import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
-import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 import nl.talsmasoftware.umldoclet.rendering.plantuml.PlantumlImageWriter;
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
 import nl.talsmasoftware.umldoclet.util.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static nl.talsmasoftware.umldoclet.logging.Message.ERROR_COULDNT_RENDER_UML;
 import static nl.talsmasoftware.umldoclet.logging.Message.INFO_GENERATING_FILE;
 
@@ -40,7 +42,8 @@ import static nl.talsmasoftware.umldoclet.logging.Message.INFO_GENERATING_FILE;
  * Subclasses of {@code UMLDiagram} are responsible for adding appropriate child renderers.
  * <p>
  * The diagram is rendered to a {@code .puml} output file.
- * Writing happens to the {@link PlantumlImageWriter} which caches the written plantuml file and
+ * The diagram is emitted into an {@link UMLEmitter} buffer first, which is then written in one go
+ * to the {@link PlantumlImageWriter} which caches the written plantuml file and
  * will generate one or more corresponding images from the diagram when the writer is closed.
  *
  * @author Sjoerd Talsma
@@ -55,11 +58,6 @@ public abstract class UMLDiagram extends UMLPart {
         this.config = requireNonNull(config, "Configuration is <null>.");
     }
 
-    @Override
-    protected UMLDiagram getDiagram() {
-        return this;
-    }
-
     /**
      * This method determines the physical file where the plantuml diagram should be rendered.
      *
@@ -67,29 +65,47 @@ public abstract class UMLDiagram extends UMLPart {
      */
     protected abstract File pumlFile();
 
+    /**
+     * This method determines the {@code HTML} page generated by the Standard doclet
+     * where this diagram should be added to.
+     *
+     * @return The physical {@code HTML} file that this diagram belongs in.
+     */
+    protected abstract File htmlFile();
+
     @Override
     public Collection<? extends UMLPart> getChildren() {
         return children;
     }
 
-    @Override
     public Configuration getConfiguration() {
         return config;
     }
 
-    @Override
-    protected Indentation getIndentation() {
-        return config.indentation();
+    /**
+     * @return The package of this diagram that relative links are resolved against, or {@code null} if none.
+     */
+    Symbol diagramPackage() {
+        return null;
     }
 
     @Override
-    public <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
+    public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
         output.append("@startuml").newline().newline();
-        writeChildrenTo(output);
+        writeChildrenTo(output, context);
         output.newline().append("@enduml").newline();
         return output;
     }
 
+    /**
+     * Announces the {@link #pumlFile() .puml file} of this diagram in the
+     * {@link Configuration#diagramManifest() diagram manifest} before it is rendered,
+     * so other diagrams can link to this diagram regardless of the rendering order.
+     */
+    public void announce() {
+        config.diagramManifest().expect(pumlFile());
+    }
+
     /**
      * Renders this diagram to a designated {@link #pumlFile() .puml file}.
      *
@@ -98,14 +114,20 @@ public abstract class UMLDiagram extends UMLPart {
     public boolean render() {
         final File pumlFile = pumlFile();
         final Logger logger = getConfiguration().logger();
-        try (IndentingPrintWriter writer = createPlantumlWriter(pumlFile)) {
-            logger.info(INFO_GENERATING_FILE, pumlFile);
-            this.writeTo(IndentingPrintWriter.wrap(writer, getConfiguration().indentation()));
-            return true;
-        } catch (RuntimeException e) {
+        final List<File> imageFiles = imageFiles(pumlFile);
+        try {
+            final RenderContext context = RenderContext.of(this);
+            final UMLEmitter uml = this.writeTo(new UMLEmitter(context.indentation()), context);
+            try (Writer writer = createPlantumlWriter(pumlFile, imageFiles)) {
+                logger.info(INFO_GENERATING_FILE, pumlFile);
+                uml.writeTo(writer);
+            }
+        } catch (IOException | RuntimeException e) {
             logger.error(ERROR_COULDNT_RENDER_UML, pumlFile, e);
             return false;
         }
+        config.diagramManifest().add(htmlFile(), imageFiles);
+        return true;
     }
 
     private Optional<File> configuredImageDirectory() {
@@ -135,19 +157,19 @@ public abstract class UMLDiagram extends UMLPart {
         return baseName;
     }
 
-    private IndentingPrintWriter createPlantumlWriter(File pumlFile) {
+    private List<File> imageFiles(File pumlFile) {
         final File imageDir = configuredImageDirectory().orElseGet(pumlFile::getParentFile);
         final String baseName = imageBasename(pumlFile);
-
-        FileUtils.ensureParentDir(pumlFile);
-        FileUtils.ensureParentDir(new File(imageDir, baseName));
-
-        File[] imageFiles = config.images().formats().stream()
+        return config.images().formats().stream()
                 .map(String::toLowerCase)
                 .map(format -> new File(imageDir, baseName + "." + format))
-                .toArray(File[]::new);
+                .collect(toList());
+    }
 
-        return IndentingPrintWriter.wrap(PlantumlImageWriter.create(config, pumlFile, imageFiles), config.indentation());
+    private Writer createPlantumlWriter(File pumlFile, List<File> imageFiles) {
+        FileUtils.ensureParentDir(pumlFile);
+        imageFiles.forEach(FileUtils::ensureParentDir);
+        return PlantumlImageWriter.create(config, pumlFile, imageFiles.toArray(new File[imageFiles.size()]));
     }
 
 }
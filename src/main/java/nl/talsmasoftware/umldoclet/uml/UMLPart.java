@@ -15,27 +15,27 @@
  */
 package nl.talsmasoftware.umldoclet.uml;
 
-import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
 import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
 import nl.talsmasoftware.umldoclet.rendering.indent.IndentingRenderer;
-import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
 
-import java.io.StringWriter;
 import java.util.Collection;
 
 import static java.util.Collections.emptySet;
-import static java.util.Objects.requireNonNull;
 
 /**
  * Smallest 'independent' part of an UML diagram that can be rendered,
  * serves as a reusable base-class for all other UML parts.
  * <p>
- * UML parts are capable of rendering themselves to {@link IndentingPrintWriter} instances and have
- * chaining methods returning these writers for easier appending.
+ * UML parts are capable of emitting themselves to an {@link UMLEmitter} and have
+ * chaining methods returning the emitter for easier appending.
+ * Writing to {@link IndentingPrintWriter} instances is still supported as an adapter.
  *
  * @author Sjoerd Talsma
  */
 public abstract class UMLPart implements IndentingRenderer {
+    private static final int SMALL_CAPACITY = 128;
+
     private UMLPart parent;
 
     protected UMLPart(UMLPart parent) {
@@ -50,14 +50,6 @@ public abstract class UMLPart implements IndentingRenderer {
         this.parent = parent;
     }
 
-    protected UMLPart requireParent() {
-        return requireNonNull(parent, () -> getClass().getSimpleName() + " seems to be an orphan, it has no parent.");
-    }
-
-    protected UMLDiagram getDiagram() {
-        return requireParent().getDiagram();
-    }
-
     /**
      * To be overridden by parts that actually have children.
      *
@@ -73,29 +65,48 @@ public abstract class UMLPart implements IndentingRenderer {
         child.setParent(this);
     }
 
-    protected Configuration getConfiguration() {
-        return getDiagram().config;
+    /**
+     * Adapter writing this part to an indenting print writer.
+     * <p>
+     * The part is {@link #writeTo(UMLEmitter, RenderContext) emitted} in the {@link RenderContext context}
+     * of the diagram it belongs to, after which the emitted text is appended to the output.
+     *
+     * @param <IPW>  The subclass of indenting print writer being written to.
+     * @param output The output to write this part to.
+     * @return A reference to the output for method chaining purposes.
+     */
+    @Override
+    public final <IPW extends IndentingPrintWriter> IPW writeTo(IPW output) {
+        final RenderContext context = RenderContext.of(this);
+        output.append(writeTo(new UMLEmitter(context.indentation(), SMALL_CAPACITY), context));
+        return output;
     }
 
-    protected Indentation getIndentation() {
-        return parent == null ? Indentation.DEFAULT : parent.getIndentation();
-    }
+    /**
+     * Emits this part within the given render context.
+     *
+     * @param output  The emitter to write this part to.
+     * @param context The context to write this part in.
+     * @return A reference to the output for method chaining purposes.
+     */
+    public abstract UMLEmitter writeTo(UMLEmitter output, RenderContext context);
 
     /**
      * Helper method to write all children to the specified output.
      * <p>
-     * By default children will be {@link #writeTo(IndentingPrintWriter) written}
-     * with increased indentation for legibility.
+     * By default children will be {@link #writeTo(UMLEmitter, RenderContext) written}
+     * in the same context, with increased indentation for legibility.
      *
-     * @param <IPW>  The subclass of indenting print writer being written to.
-     * @param output The output to write the children to.
+     * @param output  The emitter to write the children to.
+     * @param context The context to write the children in.
      * @return A reference to the output for method chaining purposes.
      */
-    protected <IPW extends IndentingPrintWriter> IPW writeChildrenTo(IPW output) {
+    protected UMLEmitter writeChildrenTo(UMLEmitter output, RenderContext context) {
         Collection<? extends UMLPart> children = getChildren();
         if (children != null && !children.isEmpty()) {
-            IndentingPrintWriter indented = output.indent();
-            children.forEach(child -> child.writeTo(indented));
+            output.indent();
+            children.forEach(child -> child.writeTo(output, context));
+            output.unindent();
         }
         return output;
     }
@@ -106,7 +117,8 @@ public abstract class UMLPart implements IndentingRenderer {
      * @return The rendered content of this renderer.
      */
     public String toString() {
-        return writeTo(IndentingPrintWriter.wrap(new StringWriter(), getIndentation())).toString();
+        final RenderContext context = RenderContext.of(this);
+        return writeTo(new UMLEmitter(context.indentation(), SMALL_CAPACITY), context).toString();
     }
 
 }
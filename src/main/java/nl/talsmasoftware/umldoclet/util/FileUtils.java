@@ -16,7 +16,11 @@
 package nl.talsmasoftware.umldoclet.util;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -100,4 +104,35 @@ public final class FileUtils {
         if (!extension.startsWith(".")) extension = '.' + extension;
         return file.toString().toLowerCase().endsWith(extension.toLowerCase());
     }
+
+    /**
+     * Determines whether the specified file already contains exactly the given content.
+     * <p>
+     * The file sizes are compared first, only if they are equal the content digests are compared.
+     *
+     * @param file    The existing file to compare with.
+     * @param content The buffer containing the new content.
+     * @param length  The number of bytes from the buffer to compare.
+     * @return {@code true} if the file exists and has the same size and digest as the new content.
+     * @throws IOException if the existing file could not be read.
+     */
+    public static boolean hasSameContent(File file, byte[] content, int length) throws IOException {
+        if (file == null || content == null || !file.isFile() || file.length() != length) return false;
+        final MessageDigest fileDigest = sha256();
+        try (InputStream in = new FileInputStream(file)) {
+            final byte[] buf = new byte[8192];
+            for (int read = in.read(buf); read >= 0; read = in.read(buf)) fileDigest.update(buf, 0, read);
+        }
+        final MessageDigest contentDigest = sha256();
+        contentDigest.update(content, 0, length);
+        return MessageDigest.isEqual(fileDigest.digest(), contentDigest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 digest is not supported: " + nsae.getMessage(), nsae);
+        }
+    }
 }
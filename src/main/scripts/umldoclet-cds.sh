@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+#
+# Copyright 2016-2018 Talsma ICT
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#        http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+
+# Runs javadoc with the UML doclet using an application class-data sharing (AppCDS) archive.
+#
+# Usage:
+#   umldoclet-cds.sh dump <javadoc options>       Training run: creates the archive from the loaded classes
+#   umldoclet-cds.sh benchmark <javadoc options>  Compares javadoc startup with and without the archive
+#   umldoclet-cds.sh <javadoc options>            Runs javadoc with the UML doclet and the archive (if present)
+#
+# Environment:
+#   UMLDOCLET_JAR   The (shaded) umldoclet jar, defaults to the umldoclet jar next to this script
+#   UMLDOCLET_JSA   The archive file, defaults to the jar file name with a .jsa extension
+#   JAVA_HOME       The JDK to run javadoc with (JDK 11 or newer for AppCDS)
+#
+# Requires bash: the benchmark uses its time keyword to measure the javadoc runs.
+
+set -e
+if [ -n "$JAVA_HOME" ]; then JAVA="$JAVA_HOME/bin/java"; else JAVA=java; fi
+if [ -z "$UMLDOCLET_JAR" ]; then
+    UMLDOCLET_JAR=$(ls "$(dirname "$0")"/umldoclet-*.jar 2>/dev/null | grep -v -e '-sources' -e '-javadoc' | head -1)
+fi
+if [ ! -f "$UMLDOCLET_JAR" ]; then
+    echo "UML doclet jar not found, please set UMLDOCLET_JAR." >&2
+    exit 1
+fi
+UMLDOCLET_JSA=${UMLDOCLET_JSA:-${UMLDOCLET_JAR%.jar}.jsa}
+
+# Usage: javadoc_with <jvm option> <javadoc options>
+# The doclet is loaded from the application classpath (instead of -docletpath), so its classes can be shared.
+javadoc_with() {
+    JVM_OPTION="$1"
+    shift
+    "$JAVA" "$JVM_OPTION" -cp "$UMLDOCLET_JAR" --module jdk.javadoc/jdk.javadoc.internal.tool.Main \
+        -doclet nl.talsmasoftware.umldoclet.UMLDoclet "$@"
+}
+
+# Usage: benchmark_runs <with|without> <jvm option> <javadoc options>
+# Runs javadoc five times, writing its output to $LOG and reporting the first failed run with that output.
+benchmark_runs() {
+    ARCHIVE="$1"
+    SHARE="$2"
+    shift 2
+    for run in 1 2 3 4 5; do
+        if ! javadoc_with "$SHARE" -quiet "$@" >"$LOG" 2>&1; then
+            echo "Javadoc run $run $ARCHIVE archive failed:" >&2
+            cat "$LOG" >&2
+            return 1
+        fi
+    done
+}
+
+case "$1" in
+    dump)
+        shift
+        CLASSLIST="${UMLDOCLET_JSA%.jsa}.classlist"
+        javadoc_with -XX:DumpLoadedClassList="$CLASSLIST" "$@" \
+            || echo "Training run reported javadoc errors, creating the archive anyway." >&2
+        "$JAVA" -Xshare:dump -XX:SharedClassListFile="$CLASSLIST" -XX:SharedArchiveFile="$UMLDOCLET_JSA" \
+            -cp "$UMLDOCLET_JAR"
+        ;;
+    benchmark)
+        shift
+        LOG=$(mktemp "${TMPDIR:-/tmp}/umldoclet-cds.XXXXXX")
+        trap 'rm -f "$LOG"' EXIT
+        TIMEFORMAT=%3R
+        for archive in without with; do
+            if [ "$archive" = with ]; then SHARE="-XX:SharedArchiveFile=$UMLDOCLET_JSA"; else SHARE="-Xshare:auto"; fi
+            # The elapsed time is reported on stderr of the group, the runs report their errors on fd 3.
+            ELAPSED=$( { time benchmark_runs "$archive" "$SHARE" "$@" 2>&3; } 3>&2 2>&1 ) || exit 1
+            echo "Average javadoc run $archive archive: $(( 10#${ELAPSED//[.,]/} / 5 )) ms"
+        done
+        ;;
+    *)
+        if [ -f "$UMLDOCLET_JSA" ]; then
+            javadoc_with -XX:SharedArchiveFile="$UMLDOCLET_JSA" "$@"
+        else
+            javadoc_with -Xshare:auto "$@"
+        fi
+        ;;
+esac
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.daemon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeThat;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class UMLDocletDaemonTest {
+
+    private UMLDocletDaemon daemon;
+    private Path tokenFile;
+    private Thread serverThread;
+
+    @Before
+    public void startDaemon() throws IOException {
+        tokenFile = Files.createTempFile("umldoclet-daemon-", ".token");
+        daemon = new UMLDocletDaemon(0, tokenFile);
+        daemon.requestTimeoutMillis = 500;
+        serverThread = new Thread(daemon::serve, "daemon-test");
+        serverThread.start();
+    }
+
+    @After
+    public void stopDaemon() throws IOException, InterruptedException {
+        daemon.close();
+        serverThread.join(5000L);
+        assertThat("Server thread stopped", serverThread.isAlive(), is(false));
+        assertThat("Token file deleted", Files.exists(tokenFile), is(false));
+    }
+
+    private String request(String... lines) throws IOException {
+        return requestWithToken(new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8), lines);
+    }
+
+    private String requestWithToken(String token, String... lines) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            out.println(token);
+            for (String line : lines) out.println(line);
+            out.println();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            StringWriter response = new StringWriter();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                response.append(line).append('\n');
+                if (line.startsWith("exit ")) break;
+            }
+            return response.toString();
+        }
+    }
+
+    @Test
+    public void testRunInProcess() {
+        StringWriter output = new StringWriter();
+        int exitCode = daemon.run(new PrintWriter(output, true), singletonList("--help"));
+
+        assertThat(exitCode, is(0));
+        assertThat(output.toString(), containsString("-umlImageFormat"));
+    }
+
+    @Test
+    public void testRequestOverSocket() throws IOException {
+        String response = request("--help");
+
+        assertThat(response, containsString("-umlImageFormat"));
+        assertThat(response, endsWith("exit 0\n"));
+    }
+
+    @Test
+    public void testRepeatedRequests() throws IOException {
+        assertThat(request("--help"), endsWith("exit 0\n"));
+        assertThat(request("--help"), endsWith("exit 0\n"));
+    }
+
+    @Test
+    public void testTokenFileIsOwnerOnly() throws IOException {
+        assumeThat("POSIX file system", tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix"), is(true));
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)), is("rw-------"));
+    }
+
+    @Test
+    public void testInvalidTokenIsRejected() throws IOException {
+        assertThat(requestWithToken("not-the-token", "--help"), endsWith("exit " + UMLDocletDaemon.REJECTED + "\n"));
+        assertThat(requestWithToken("not-the-token", UMLDocletDaemon.SHUTDOWN), endsWith("exit " + UMLDocletDaemon.REJECTED + "\n"));
+        assertThat(request("--help"), endsWith("exit 0\n"));
+    }
+
+    @Test
+    public void testCodeLoadingOptionsAreRejected() throws IOException {
+        for (String option : new String[]{"-doclet", "-docletpath", "--doclet-path=lib", "-tagletpath", "-J-Xmx1g", "@args"}) {
+            String response = request(option, "other.Doclet", "--help");
+            assertThat(response, containsString("Option not allowed in daemon requests: " + option));
+            assertThat(response, endsWith("exit " + UMLDocletDaemon.REJECTED + "\n"));
+        }
+    }
+
+    @Test
+    public void testIdleClientDoesNotBlockDaemon() throws IOException {
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            assertThat(request("--help"), endsWith("exit 0\n"));
+        }
+    }
+
+    @Test
+    public void testShutdownRequest() throws IOException, InterruptedException {
+        assertThat(request(UMLDocletDaemon.SHUTDOWN), is("exit 0\n"));
+        serverThread.join(5000L);
+        assertThat("Server thread stopped", serverThread.isAlive(), is(false));
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.html;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
+import static nl.talsmasoftware.umldoclet.util.ConcurrencyTesting.runShuffled;
+import static nl.talsmasoftware.umldoclet.util.ConcurrencyTesting.schedulingRandom;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test collecting the diagrams from many threads at once,
+ * comparing the results with a single-threaded golden run.
+ *
+ * @author Sjoerd Talsma
+ */
+public class ConcurrentDiagramCollectorTest {
+    private static final int PACKAGES = 12;
+    private static final int CLASSES_PER_PACKAGE = 10;
+    private static final int THREADS = 16;
+    private static final int TASKS = 200;
+
+    private File tempdir;
+    private Configuration walkingConfig;
+    private Configuration manifestConfig;
+
+    @Before
+    public void setUp() throws IOException {
+        tempdir = File.createTempFile("diagrams-", ".tmp");
+        assertThat("Created temporary directory", tempdir.delete() && tempdir.mkdirs(), is(true));
+        final DiagramManifest manifest = new DiagramManifest();
+        for (int p = 0; p < PACKAGES; p++) {
+            final String pkg = "synthetic/p" + p + (p % 3 == 0 ? "/nested" : "");
+            final List<File> images = new ArrayList<>();
+            images.add(createFile(pkg + "/package.svg"));
+            for (int c = 0; c < CLASSES_PER_PACKAGE; c++) {
+                images.add(createFile(pkg + "/Node" + p + "_" + c + ".svg"));
+                createFile(pkg + "/Node" + p + "_" + c + ".puml");
+                createFile(pkg + "/Node" + p + "_" + c + ".html");
+            }
+            if (p % 2 == 0) manifest.add(null, images);
+        }
+        walkingConfig = mockConfig(new DiagramManifest());
+        manifestConfig = mockConfig(manifest);
+    }
+
+    private Configuration mockConfig(DiagramManifest manifest) {
+        ImageConfig images = mock(ImageConfig.class);
+        when(images.formats()).thenReturn(singleton("SVG"));
+        when(images.directory()).thenReturn(Optional.empty());
+        Configuration config = mock(Configuration.class);
+        when(config.destinationDirectory()).thenReturn(tempdir.getPath());
+        when(config.images()).thenReturn(images);
+        when(config.diagramManifest()).thenReturn(manifest);
+        return config;
+    }
+
+    @After
+    public void deleteTempdir() {
+        delete(tempdir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) delete(child);
+        assertThat("Delete " + file, file.delete(), is(true));
+    }
+
+    private File createFile(String path) throws IOException {
+        File file = new File(tempdir, path);
+        assertThat(file.getParentFile().isDirectory() || file.getParentFile().mkdirs(), is(true));
+        new FileOutputStream(file).close();
+        return file;
+    }
+
+    private static List<String> collect(Configuration config) throws IOException {
+        return new DiagramCollector(config).collectDiagrams().stream()
+                .map(UmlDiagram::toString).sorted().collect(toList());
+    }
+
+    @Test
+    public void testConcurrentCollectionMatchesSingleThreadedRun() throws IOException {
+        final List<String> walkingGolden = collect(walkingConfig);
+        final List<String> manifestGolden = collect(manifestConfig);
+        assertThat(walkingGolden, hasSize(PACKAGES * (CLASSES_PER_PACKAGE + 1)));
+        assertThat(manifestGolden, hasSize(PACKAGES / 2 * (CLASSES_PER_PACKAGE + 1)));
+
+        final Random random = schedulingRandom();
+        final List<Callable<List<String>>> tasks = new ArrayList<>(TASKS);
+        final List<List<String>> expected = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            final boolean walking = random.nextBoolean();
+            tasks.add(() -> collect(walking ? walkingConfig : manifestConfig));
+            expected.add(walking ? walkingGolden : manifestGolden);
+        }
+
+        final List<List<String>> results = runShuffled(THREADS, random, tasks);
+        for (int i = 0; i < TASKS; i++) {
+            assertThat("Collected diagrams #" + i + " (" + random + ")", results.get(i), is(expected.get(i)));
+        }
+    }
+
+}
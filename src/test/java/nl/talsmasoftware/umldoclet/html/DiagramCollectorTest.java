@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.html;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class DiagramCollectorTest {
+
+    private File tempdir;
+    private DiagramManifest manifest;
+    private Configuration config;
+
+    @Before
+    public void setUp() throws IOException {
+        tempdir = File.createTempFile("diagrams-", ".tmp");
+        assertThat("Created temporary directory", tempdir.delete() && tempdir.mkdirs(), is(true));
+        manifest = new DiagramManifest();
+        ImageConfig images = mock(ImageConfig.class);
+        when(images.formats()).thenReturn(singleton("SVG"));
+        when(images.directory()).thenReturn(Optional.empty());
+        config = mock(Configuration.class);
+        when(config.destinationDirectory()).thenReturn(tempdir.getPath());
+        when(config.images()).thenReturn(images);
+        when(config.diagramManifest()).thenReturn(manifest);
+    }
+
+    @After
+    public void deleteTempdir() {
+        delete(tempdir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) delete(child);
+        assertThat("Delete " + file, file.delete(), is(true));
+    }
+
+    private File createFile(String path) throws IOException {
+        File file = new File(tempdir, path);
+        assertThat(file.getParentFile().isDirectory() || file.getParentFile().mkdirs(), is(true));
+        new FileOutputStream(file).close();
+        return file;
+    }
+
+    @Test
+    public void testCollectFromManifestDoesNotWalk() throws IOException {
+        File classDiagram = createFile("a/b/Foo.svg");
+        File packageDiagram = createFile("a/b/package.svg");
+        createFile("a/c/Unrecorded.svg");
+        manifest.add(null, asList(classDiagram, packageDiagram, new File(tempdir, "a/b/NotRendered.svg")));
+
+        Collection<UmlDiagram> diagrams = new DiagramCollector(config).collectDiagrams();
+
+        assertThat(diagrams, hasSize(2));
+    }
+
+    @Test
+    public void testCollectWithoutManifestWalksDirectories() throws IOException {
+        createFile("a/b/Foo.svg");
+        createFile("a/b/package.svg");
+        createFile("a/c/d/Bar.svg");
+        createFile("a/c/d/Bar.puml");
+        createFile("a/c/d/Bar.html");
+
+        Collection<UmlDiagram> diagrams = new DiagramCollector(config).collectDiagrams();
+
+        assertThat(diagrams, hasSize(3));
+        assertThat(diagrams.stream().filter(UmlPackageDiagram.class::isInstance).count(), is(1L));
+    }
+
+}
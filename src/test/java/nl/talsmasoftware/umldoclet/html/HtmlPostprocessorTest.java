@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.html;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.logging.Logger;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singleton;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class HtmlPostprocessorTest {
+    private static final String[] HTML_PAGES = {
+            "index.html", "a/b/package-summary.html", "a/b/Outer.html", "a/b/Outer.Inner.html", "a/b/Other.html"};
+    private static final String CLASS_PAGE = "<html><body>%n<div class=\"header\">%s</div>%n<hr>%n<pre>class</pre>%n</body></html>";
+    private static final String PACKAGE_PAGE = "<html><body>%n<div class=\"header\">%s</div>%n<table class=\"typeSummary\">%n</table>%n</body></html>";
+
+    private File walked, fromManifest;
+
+    @Before
+    public void createOutputDirectories() throws IOException {
+        walked = createOutput("walked-");
+        fromManifest = createOutput("manifest-");
+    }
+
+    @After
+    public void deleteOutputDirectories() {
+        delete(walked);
+        delete(fromManifest);
+    }
+
+    private static File createOutput(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, ".tmp");
+        assertThat("Created temporary directory", dir.delete() && dir.mkdirs(), is(true));
+        for (String page : HTML_PAGES) {
+            createFile(dir, page, String.format(page.endsWith("package-summary.html") ? PACKAGE_PAGE : CLASS_PAGE, page));
+        }
+        createFile(dir, "a/b/package.svg", "<svg/>");
+        createFile(dir, "a/b/Outer.svg", "<svg/>");
+        createFile(dir, "a/b/Outer.Inner.svg", "<svg/>");
+        return dir;
+    }
+
+    private static void createFile(File dir, String path, String content) throws IOException {
+        File file = new File(dir, path);
+        assertThat(file.getParentFile().isDirectory() || file.getParentFile().mkdirs(), is(true));
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+
+    private static String read(File dir, String path) throws IOException {
+        return new String(Files.readAllBytes(new File(dir, path).toPath()), UTF_8);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) delete(child);
+        assertThat("Delete " + file, file.delete(), is(true));
+    }
+
+    private static Configuration configFor(File destinationDir, DiagramManifest manifest) {
+        ImageConfig images = mock(ImageConfig.class);
+        when(images.formats()).thenReturn(singleton("SVG"));
+        when(images.directory()).thenReturn(Optional.empty());
+        Configuration config = mock(Configuration.class);
+        when(config.destinationDirectory()).thenReturn(destinationDir.getPath());
+        when(config.images()).thenReturn(images);
+        when(config.htmlCharset()).thenReturn(UTF_8);
+        when(config.logger()).thenReturn(mock(Logger.class));
+        when(config.diagramManifest()).thenReturn(manifest);
+        return config;
+    }
+
+    private static void record(DiagramManifest manifest, File dir, String htmlPage, String image) {
+        manifest.add(new File(dir, htmlPage), singleton(new File(dir, image)));
+    }
+
+    @Test
+    public void testManifestAndDirectoryWalkProduceTheSameHtml() throws IOException {
+        assertThat(new HtmlPostprocessor(configFor(walked, new DiagramManifest())).postProcessHtml(), is(true));
+
+        DiagramManifest manifest = new DiagramManifest();
+        record(manifest, fromManifest, "a/b/package-summary.html", "a/b/package.svg");
+        record(manifest, fromManifest, "a/b/Outer.html", "a/b/Outer.svg");
+        record(manifest, fromManifest, "a/b/Outer.Inner.html", "a/b/Outer.Inner.svg");
+        assertThat(new HtmlPostprocessor(configFor(fromManifest, manifest)).postProcessHtml(), is(true));
+
+        assertThat(read(walked, "a/b/package-summary.html"), containsString("data=\"package.svg\""));
+        assertThat(read(walked, "a/b/Outer.html"), containsString("data=\"Outer.svg\""));
+        assertThat(read(walked, "a/b/Outer.Inner.html"), containsString("data=\"Outer.Inner.svg\""));
+        assertThat(read(walked, "a/b/Other.html"), not(containsString(".svg")));
+        for (String page : HTML_PAGES) {
+            assertThat(page, read(fromManifest, page), is(read(walked, page)));
+        }
+    }
+
+}
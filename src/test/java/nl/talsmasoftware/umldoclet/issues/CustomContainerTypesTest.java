@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.issues;
+
+import nl.talsmasoftware.umldoclet.UMLDoclet;
+import nl.talsmasoftware.umldoclet.util.Testing;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.spi.ToolProvider;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.either;
+
+/**
+ * Test references to custom container types configured by the {@code -umlCollectionTypes}
+ * and {@code -umlOptionalTypes} options.
+ *
+ * @author Sjoerd Talsma
+ */
+public class CustomContainerTypesTest {
+
+    public static class Item {
+    }
+
+    public static class Maybe<T> {
+    }
+
+    public static class Many<T> {
+    }
+
+    public Maybe<Item> getOptionalItem() {
+        return null;
+    }
+
+    public Many<Item> getItems() {
+        return null;
+    }
+
+    @Test
+    public void testCustomContainerTypes() {
+        String packageAsPath = getClass().getPackage().getName().replace('.', '/');
+        String classAsPath = packageAsPath + "/" + getClass().getSimpleName();
+        ToolProvider.findFirst("javadoc").get().run(
+                System.out, System.err,
+                "-d", "target/test-custom-containers",
+                "-doclet", UMLDoclet.class.getName(),
+                "-quiet",
+                "-umlOptionalTypes", Maybe.class.getCanonicalName(),
+                "-umlCollectionTypes", Many.class.getCanonicalName(),
+                "src/test/java/" + classAsPath + ".java"
+        );
+        String uml = Testing.read(new File("target/test-custom-containers/" + packageAsPath + "/package.puml"));
+
+        String name = getClass().getName();
+        String simpleName = getClass().getSimpleName();
+        String itemName = Item.class.getCanonicalName();
+        String itemSimpleName = simpleName + "." + Item.class.getSimpleName();
+
+        assertThat(uml, either(containsString(simpleName + " --> \"0..1\" " + itemSimpleName + ": optionalItem"))
+                .or(containsString(name + " --> \"0..1\" " + itemName + ": optionalItem")));
+        assertThat(uml, either(containsString(simpleName + " --> \"*\" " + itemSimpleName + ": items"))
+                .or(containsString(name + " --> \"*\" " + itemName + ": items")));
+    }
+
+}
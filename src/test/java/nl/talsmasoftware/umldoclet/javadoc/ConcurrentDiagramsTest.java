@@ -0,0 +1,263 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.DocletEnvironment;
+import jdk.javadoc.doclet.Reporter;
+import nl.talsmasoftware.umldoclet.UMLDoclet;
+import nl.talsmasoftware.umldoclet.util.Testing;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.lang.model.SourceVersion;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.spi.ToolProvider;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptySet;
+import static nl.talsmasoftware.umldoclet.util.ConcurrencyTesting.generateSyntheticSources;
+import static nl.talsmasoftware.umldoclet.util.ConcurrencyTesting.runShuffled;
+import static nl.talsmasoftware.umldoclet.util.ConcurrencyTesting.schedulingRandom;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Stress test creating and rendering diagrams from many threads,
+ * comparing the results with a single-threaded golden run.
+ * <p>
+ * The javadoc model itself is not thread-safe, so the {@link ModelSnapshot} is taken once, single-threaded.
+ * The diagrams are created from the snapshot by a shared {@link UMLFactory},
+ * sharing the configuration and its fragment cache.
+ * Complete doclet runs rendering {@code SVG} images are compared with a doclet run in a single-threaded pool,
+ * including the links in the images and the postprocessed {@code HTML}.
+ *
+ * @author Sjoerd Talsma
+ */
+public class ConcurrentDiagramsTest {
+    private static final File outputdir = new File("target/test-concurrency");
+    private static final File sourcedir = new File(outputdir, "src");
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+    private static final int DOCLET_RUNS = 3;
+    private static final Pattern GENERATION_DATE = Pattern.compile(
+            "(?m)^.*(Generated by javadoc|name=\"date\"|name=\"dc\\.created\").*$");
+
+    private static DocletConfig config;
+    private static ModelSnapshot model;
+    private static List<String> golden;
+
+    /**
+     * Doclet that only takes the model snapshot, so the diagrams can be created after the javadoc run.
+     */
+    public static class SnapshotDoclet implements Doclet {
+        private final DocletConfig docletConfig = new DocletConfig(new UMLDoclet());
+
+        @Override
+        public void init(Locale locale, Reporter reporter) {
+            docletConfig.init(locale, reporter);
+        }
+
+        @Override
+        public String getName() {
+            return "UML snapshot";
+        }
+
+        @Override
+        public Set<? extends Option> getSupportedOptions() {
+            return docletConfig.mergeOptionsWith(emptySet());
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latest();
+        }
+
+        @Override
+        public boolean run(DocletEnvironment environment) {
+            config = docletConfig;
+            model = ModelSnapshot.of(docletConfig, environment);
+            return true;
+        }
+    }
+
+    @BeforeClass
+    public static void createSnapshotAndGoldenRun() {
+        generateSyntheticSources(sourcedir, 4, 8);
+        assertThat("Javadoc result", javadoc(new File(outputdir, "snapshot"), SnapshotDoclet.class, "none"), is(0));
+        golden = new ArrayList<>();
+        for (Callable<String> task : diagramTasks(new UMLFactory(config, model))) {
+            try {
+                golden.add(task.call());
+            } catch (Exception e) {
+                throw new IllegalStateException("Golden run failed: " + e.getMessage(), e);
+            }
+        }
+        assertThat("Golden diagrams", golden, is(not(empty())));
+    }
+
+    private static int javadoc(File destination, Class<? extends Doclet> doclet, String imageFormat) {
+        return ToolProvider.findFirst("javadoc").get().run(
+                System.out, System.err,
+                "-d", destination.getPath(),
+                "-doclet", doclet.getName(),
+                "-quiet",
+                "-umlImageFormat", imageFormat,
+                "-sourcepath", sourcedir.getPath(),
+                "-subpackages", "synthetic"
+        );
+    }
+
+    private static List<Callable<String>> diagramTasks(UMLFactory factory) {
+        final List<Callable<String>> tasks = new ArrayList<>();
+        model.includedTypes().forEach(type -> tasks.add(() -> factory.createClassDiagram(type).toString()));
+        model.includedPackages().forEach(pkg -> tasks.add(() -> factory.createPackageDiagram(pkg).toString()));
+        return tasks;
+    }
+
+    private static void assertSameDiagrams(String description, List<String> diagrams) {
+        assertThat(description + " diagrams", diagrams, hasSize(golden.size()));
+        for (int i = 0; i < golden.size(); i++) {
+            assertThat(description + " diagram #" + i, diagrams.get(i), is(golden.get(i)));
+        }
+    }
+
+    @Test
+    public void testConcurrentDiagramsMatchSingleThreadedRun() {
+        final Random random = schedulingRandom();
+        for (int round = 1; round <= ROUNDS; round++) {
+            if (random.nextBoolean()) config.fragmentCache().clear();
+            final List<String> diagrams = runShuffled(THREADS, random, diagramTasks(new UMLFactory(config, model)));
+            assertSameDiagrams("Round " + round + " (" + random + ")", diagrams);
+        }
+    }
+
+    @Test
+    public void testRepeatedDocletRunsMatchSingleThreadedRun() throws IOException {
+        final List<String> sortedGolden = new ArrayList<>(golden);
+        Collections.sort(sortedGolden);
+        for (int run = 1; run <= DOCLET_RUNS; run++) {
+            final File destination = new File(outputdir, "run-" + run);
+            assertThat("Javadoc result", javadoc(destination, UMLDoclet.class, "none"), is(0));
+            assertThat("Run " + run + " diagrams", readPlantumlFiles(destination), is(sortedGolden));
+        }
+    }
+
+    @Test
+    public void testConcurrentDocletRunsMatchSingleThreadedRun() throws IOException {
+        final List<String> sortedGolden = new ArrayList<>(golden);
+        Collections.sort(sortedGolden);
+        final Random random = schedulingRandom();
+        final List<Callable<Integer>> runs = new ArrayList<>();
+        for (int run = 1; run <= DOCLET_RUNS; run++) {
+            final File destination = new File(outputdir, "concurrent-run-" + run);
+            runs.add(() -> javadoc(destination, UMLDoclet.class, "none"));
+        }
+        final List<Integer> results = runShuffled(DOCLET_RUNS, random, runs);
+        for (int run = 1; run <= DOCLET_RUNS; run++) {
+            assertThat("Javadoc result (" + random + ")", results.get(run - 1), is(0));
+            assertThat("Concurrent run " + run + " diagrams (" + random + ")",
+                    readPlantumlFiles(new File(outputdir, "concurrent-run-" + run)), is(sortedGolden));
+        }
+    }
+
+    @Test
+    public void testConcurrentSvgDocletRunsMatchSingleThreadedRun() throws Exception {
+        final File goldenDestination = new File(outputdir, "svg-golden");
+        deleteRecursive(goldenDestination);
+        // Parallel streams started from a pool worker use that pool, so this renders everything from one thread.
+        final ForkJoinPool singleThreaded = new ForkJoinPool(1);
+        try {
+            assertThat("Javadoc result", singleThreaded.submit(
+                    () -> javadoc(goldenDestination, UMLDoclet.class, "svg")).get(), is(0));
+        } finally {
+            singleThreaded.shutdown();
+        }
+        final Map<String, String> goldenFiles = readGeneratedFiles(goldenDestination);
+        assertThat("Golden SVG images", goldenFiles.keySet().stream().filter(name -> name.endsWith(".svg")).count(),
+                is((long) golden.size()));
+
+        final Random random = schedulingRandom();
+        final List<Callable<Integer>> runs = new ArrayList<>();
+        for (int run = 1; run <= DOCLET_RUNS; run++) {
+            final File destination = new File(outputdir, "svg-run-" + run);
+            deleteRecursive(destination);
+            runs.add(() -> javadoc(destination, UMLDoclet.class, "svg"));
+        }
+        final List<Integer> results = runShuffled(DOCLET_RUNS, random, runs);
+        for (int run = 1; run <= DOCLET_RUNS; run++) {
+            assertThat("Javadoc result (" + random + ")", results.get(run - 1), is(0));
+            final Map<String, String> generated = readGeneratedFiles(new File(outputdir, "svg-run-" + run));
+            assertThat("SVG run " + run + " files (" + random + ")", generated.keySet(), is(goldenFiles.keySet()));
+            for (Map.Entry<String, String> file : goldenFiles.entrySet()) {
+                assertThat("SVG run " + run + ": " + file.getKey() + " (" + random + ")",
+                        generated.get(file.getKey()), is(file.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Reads the generated diagrams, images and HTML pages of the synthetic sources,
+     * leaving out the lines containing the generation date.
+     *
+     * @param destination The destination directory of the javadoc run.
+     * @return The file contents by relative path.
+     */
+    private static Map<String, String> readGeneratedFiles(File destination) throws IOException {
+        final Path root = new File(destination, "synthetic").toPath();
+        try (Stream<Path> files = Files.walk(root)) {
+            final Map<String, String> generated = new TreeMap<>();
+            files.filter(path -> Stream.of(".puml", ".svg", ".html").anyMatch(path.toString()::endsWith))
+                    .forEach(path -> generated.put(root.relativize(path).toString(),
+                            GENERATION_DATE.matcher(Testing.read(path.toFile())).replaceAll("")));
+            return generated;
+        }
+    }
+
+    private static void deleteRecursive(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) for (File child : children) deleteRecursive(child);
+        assertThat("Delete " + file, !file.exists() || file.delete(), is(true));
+    }
+
+    private static List<String> readPlantumlFiles(File destination) throws IOException {
+        try (Stream<Path> files = Files.walk(destination.toPath())) {
+            return files.filter(path -> path.toString().endsWith(".puml"))
+                    .map(path -> Testing.read(path.toFile()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+}
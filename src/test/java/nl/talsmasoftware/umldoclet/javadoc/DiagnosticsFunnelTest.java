@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class DiagnosticsFunnelTest {
+    private static final int THREADS = 8;
+    private static final int GROUPS_PER_THREAD = 200;
+    private static final int MESSAGES_PER_GROUP = 5;
+
+    private DiagnosticsFunnel funnel;
+    private List<String> delivered;
+    private AtomicInteger concurrentDeliveries;
+    private volatile boolean overlap;
+
+    @Before
+    public void createFunnel() {
+        funnel = new DiagnosticsFunnel();
+        delivered = new ArrayList<>(); // deliberately not thread-safe
+        concurrentDeliveries = new AtomicInteger(0);
+        overlap = false;
+    }
+
+    private Runnable deliver(String message) {
+        return () -> {
+            if (concurrentDeliveries.incrementAndGet() > 1) overlap = true;
+            delivered.add(message);
+            concurrentDeliveries.decrementAndGet();
+        };
+    }
+
+    @Test
+    public void testMessagesAreDeliveredImmediatelyFromSingleThread() {
+        funnel.report(deliver("first"));
+        assertThat(delivered, contains("first"));
+        funnel.report(deliver("second"));
+        assertThat(delivered, contains("first", "second"));
+    }
+
+    @Test
+    public void testGroupedMessagesAreDeliveredAfterAction() {
+        String result = funnel.grouped(() -> {
+            funnel.report(deliver("first"));
+            funnel.grouped(() -> {
+                funnel.report(deliver("nested"));
+                return null;
+            });
+            assertThat(delivered, is(empty()));
+            return "result";
+        });
+        assertThat(result, is("result"));
+        assertThat(delivered, contains("first", "nested"));
+    }
+
+    @Test
+    public void testGroupedMessagesAreDeliveredOnException() {
+        try {
+            funnel.grouped(() -> {
+                funnel.report(deliver("error"));
+                throw new IllegalStateException("Action failed");
+            });
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getMessage(), is("Action failed"));
+        }
+        assertThat(delivered, contains("error"));
+    }
+
+    @Test
+    public void testConcurrentGroupsAreDeliveredTogether() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(threads.submit(() -> {
+                    for (int g = 0; g < GROUPS_PER_THREAD; g++) {
+                        final String group = thread + "." + g;
+                        funnel.grouped(() -> {
+                            for (int m = 0; m < MESSAGES_PER_GROUP; m++) {
+                                funnel.report(deliver(group + ":" + m));
+                            }
+                            return null;
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            threads.shutdown();
+        }
+
+        assertThat(overlap, is(false));
+        assertThat(delivered, hasSize(THREADS * GROUPS_PER_THREAD * MESSAGES_PER_GROUP));
+        for (int i = 0; i < delivered.size(); i += MESSAGES_PER_GROUP) {
+            String group = delivered.get(i).substring(0, delivered.get(i).indexOf(':'));
+            for (int m = 0; m < MESSAGES_PER_GROUP; m++) {
+                assertThat(delivered.get(i + m), is(group + ":" + m));
+            }
+        }
+    }
+
+}
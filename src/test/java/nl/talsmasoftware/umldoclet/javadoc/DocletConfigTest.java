@@ -24,7 +24,10 @@ import java.io.UnsupportedEncodingException;
 import java.util.spi.ToolProvider;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 
 /**
@@ -45,4 +48,18 @@ public class DocletConfigTest {
         assertThat(new String(bytes.toByteArray(), UTF_8), not(containsString("<MISSING KEY>")));
     }
 
+    @Test
+    public void testContainerTypes() {
+        DocletConfig config = new DocletConfig(new UMLDoclet());
+        assertThat(config.optionalTypes(), contains("java.util.Optional", "com.google.common.base.Optional"));
+        assertThat(config.collectionTypes(), contains("java.lang.Iterable", "java.util.stream.Stream"));
+
+        DocletConfig.addTypeNames(config.optionalTypes, " io.vavr.control.Option ;, ");
+        DocletConfig.addTypeNames(config.collectionTypes, "io.vavr.collection.Traversable,java.lang.Iterable");
+        assertThat(config.optionalTypes(), hasItem("io.vavr.control.Option"));
+        assertThat(config.optionalTypes(), hasSize(3));
+        assertThat(config.collectionTypes(), contains(
+                "java.lang.Iterable", "java.util.stream.Stream", "io.vavr.collection.Traversable"));
+    }
+
 }
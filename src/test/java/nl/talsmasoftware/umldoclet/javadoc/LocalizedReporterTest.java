@@ -28,8 +28,15 @@ import org.mockito.Mockito;
 
 import javax.lang.model.element.Element;
 import javax.tools.Diagnostic;
+import java.io.File;
+import java.io.IOException;
 import java.util.Locale;
 
+import static nl.talsmasoftware.umldoclet.util.Testing.read;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -136,6 +143,53 @@ public class LocalizedReporterTest {
                 eq("Could not render \"uml\": reason"));
     }
 
+    @Test
+    public void testEventLog_records_unprinted_messages() throws IOException {
+        File eventLog = File.createTempFile("events-", ".jsonl");
+        try {
+            config.eventLogFile = eventLog.getPath();
+            localizedReporter.debug(Message.DEBUG_SKIPPING_FILE, "some file");
+            config.close();
+
+            assertThat(read(eventLog), containsString(
+                    "\"level\":\"debug\",\"message\":\"DEBUG_SKIPPING_FILE\",\"args\":[\"some file\"]}"));
+        } finally {
+            assertThat(eventLog.delete(), is(true));
+        }
+    }
+
+    @Test
+    public void testEventLog_not_reopened_after_close() throws IOException {
+        File eventLog = File.createTempFile("events-", ".jsonl");
+        try {
+            config.eventLogFile = eventLog.getPath();
+            localizedReporter.debug(Message.DEBUG_SKIPPING_FILE, "some file");
+            config.close();
+            localizedReporter.debug(Message.DEBUG_SKIPPING_FILE, "late file");
+            config.close();
+
+            String events = read(eventLog);
+            assertThat(events, containsString("\"args\":[\"some file\"]"));
+            assertThat(events, not(containsString("late file")));
+        } finally {
+            assertThat(eventLog.delete(), is(true));
+        }
+    }
+
+    @Test
+    public void testGrouped() {
+        String result = localizedReporter.grouped(() -> {
+            localizedReporter.info(Message.INFO_GENERATING_FILE, "some file");
+            localizedReporter.error(Message.ERROR_COULDNT_RENDER_UML, "uml", "reason");
+            verifyNoMoreInteractions(mockReporter);
+            return "result";
+        });
+
+        assertThat(result, is("result"));
+        verify(mockReporter).print(eq(Diagnostic.Kind.NOTE), eq("Generating some file..."));
+        verify(mockReporter).print(eq(Diagnostic.Kind.ERROR), eq("Could not render \"uml\": reason"));
+    }
+
     @Test
     public void testPrint_nulls() {
         localizedReporter.print(null, null);
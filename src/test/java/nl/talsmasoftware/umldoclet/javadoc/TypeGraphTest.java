@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import nl.talsmasoftware.umldoclet.uml.Type;
+import nl.talsmasoftware.umldoclet.uml.TypeName;
+import nl.talsmasoftware.umldoclet.uml.Visibility;
+import org.junit.Test;
+
+import javax.lang.model.element.ElementKind;
+import java.util.BitSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class TypeGraphTest {
+
+    private static TypeName name(String simple) {
+        return new TypeName(simple, "a.b." + simple);
+    }
+
+    private static MemberSnapshot field(String name, TypeName type, String cardinality) {
+        return new MemberSnapshot(ElementKind.FIELD, Visibility.PRIVATE, false, false, false, name, type,
+                emptyList(), emptyList(), false, false, null, new TypeNameWithCardinality(type, cardinality));
+    }
+
+    private static MemberSnapshot getter(String property, TypeName type) {
+        String name = "get" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        return new MemberSnapshot(ElementKind.METHOD, Visibility.PUBLIC, false, false, false, name, type,
+                emptyList(), emptyList(), false, false, property, new TypeNameWithCardinality(type, null));
+    }
+
+    private static TypeSnapshot type(String simple, TypeName superclass, List<TypeName> interfaces,
+                                     TypeName enclosingType, List<TypeName> innerTypes, MemberSnapshot... members) {
+        return new TypeSnapshot("a.b", Type.Classification.CLASS, name(simple), false,
+                superclass, interfaces, enclosingType, innerTypes, asList(members));
+    }
+
+    private final TypeGraph graph = new TypeGraph(asList(
+            type("Shape", null, emptyList(), null, asList(name("Shape.Point")),
+                    getter("origin", name("Shape.Point"))),
+            type("Shape.Point", null, emptyList(), name("Shape"), emptyList()),
+            type("Square", name("Shape"), asList(name("Comparable")), null, emptyList(),
+                    getter("next", name("Square")), field("corners", name("Shape.Point"), "*")),
+            type("Circle", name("Shape"), asList(name("Comparable")), null, emptyList())
+    ));
+
+    private int id(String simple) {
+        return graph.id("a.b." + simple);
+    }
+
+    private String[] names(int[] nodes) {
+        String[] names = new String[nodes.length];
+        for (int i = 0; i < nodes.length; i++) names[i] = graph.typeName(nodes[i]).simple;
+        return names;
+    }
+
+    @Test
+    public void testNodes() {
+        assertThat(graph.size(), is(5));
+        assertThat(graph.id("a.b.Unknown"), is(TypeGraph.NONE));
+        assertThat(graph.typeName(id("Comparable")), equalTo(name("Comparable")));
+    }
+
+    @Test
+    public void testTypeHierarchy() {
+        assertThat(graph.superclass(id("Square")), is(id("Shape")));
+        assertThat(graph.superclass(id("Shape")), is(TypeGraph.NONE));
+        assertThat(names(graph.interfaces(id("Circle"))), equalTo(new String[]{"Comparable"}));
+        assertThat(names(graph.knownSubtypes(id("Shape"))), equalTo(new String[]{"Square", "Circle"}));
+        assertThat(names(graph.knownSubtypes(id("Comparable"))), equalTo(new String[]{"Square", "Circle"}));
+    }
+
+    @Test
+    public void testInnerTypes() {
+        assertThat(names(graph.innerTypes(id("Shape"))), equalTo(new String[]{"Shape.Point"}));
+        assertThat(graph.enclosingType(id("Shape.Point")), is(id("Shape")));
+        assertThat(graph.enclosingType(id("Square")), is(TypeGraph.NONE));
+    }
+
+    @Test
+    public void testUsesFieldsBeforeProperties() {
+        final int square = id("Square");
+        assertThat(graph.endOfUses(square) - graph.firstUse(square), is(2));
+
+        final int fieldUse = graph.firstUse(square);
+        assertThat(graph.useTarget(fieldUse), is(id("Shape.Point")));
+        assertThat(graph.useName(fieldUse), is("corners"));
+        assertThat(graph.useMember(fieldUse), is("corners"));
+        assertThat(graph.useCardinality(fieldUse), is("*"));
+        assertThat(graph.isFieldUse(fieldUse), is(true));
+
+        final int propertyUse = fieldUse + 1;
+        assertThat(graph.useTarget(propertyUse), is(square));
+        assertThat(graph.useName(propertyUse), is("next"));
+        assertThat(graph.useMember(propertyUse), is("getNext"));
+        assertThat(graph.useCardinality(propertyUse), is(nullValue()));
+        assertThat(graph.isFieldUse(propertyUse), is(false));
+    }
+
+    @Test
+    public void testUsagesNeighbourhood() {
+        BitSet oneHop = graph.usages(id("Square"), 1);
+        assertThat(oneHop.cardinality(), is(1));
+        assertThat(oneHop.get(id("Shape.Point")), is(true));
+
+        BitSet twoHops = graph.usages(id("Shape"), 2);
+        assertThat(twoHops.cardinality(), is(1));
+        assertThat(twoHops.get(id("Shape.Point")), is(true));
+        assertThat(graph.usages(id("Circle"), 3).isEmpty(), is(true));
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.javadoc;
+
+import com.sun.source.util.JavacTask;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests the cardinality of references to (custom) container types,
+ * using the types of fields in a source that is compiled for the test.
+ *
+ * @author Sjoerd Talsma
+ */
+public class TypeNameWithCardinalityTest {
+    private static final String SOURCE = "package test;\n" +
+            "import java.util.*;\n" +
+            "public class Holder {\n" +
+            "    public static class Foo {}\n" +
+            "    public static class Bar {}\n" +
+            "    public static class Box<T> {}\n" +
+            "    public static abstract class Bag<T> implements Iterable<T> {}\n" +
+            "    public interface Pair<K, V> extends Iterable<V> {}\n" +
+            "    public static abstract class Foos implements Iterable<Foo> {}\n" +
+            "    public static abstract class FooBag extends Bag<Foo> {}\n" +
+            "    public static abstract class Lists<T> implements Iterable<List<T>> {}\n" +
+            "    public static class Outer<T> {\n" +
+            "        public abstract class Inner implements Iterable<T> {}\n" +
+            "    }\n" +
+            "    public Foo single;\n" +
+            "    public Foo[] array;\n" +
+            "    public List<Foo> fooList;\n" +
+            "    public List<Bar> barList;\n" +
+            "    public Pair<String, Foo> fooPair;\n" +
+            "    public Pair<Foo, Bar> barPair;\n" +
+            "    public Foos foos;\n" +
+            "    public FooBag fooBag;\n" +
+            "    public Lists<Foo> lists;\n" +
+            "    public List raw;\n" +
+            "    public Outer<Foo>.Inner fooInner;\n" +
+            "    public Outer<Bar>.Inner barInner;\n" +
+            "    public Optional<Foo> optional;\n" +
+            "    public Box<Foo> fooBox;\n" +
+            "    public Box<Bar> barBox;\n" +
+            "    public Bag<Bar> barBag;\n" +
+            "}\n";
+
+    private static Types typeUtils;
+    private static Map<String, TypeMirror> fieldTypes;
+
+    @BeforeClass
+    public static void compileSource() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///test/Holder.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return SOURCE;
+            }
+        };
+        JavacTask task = (JavacTask) compiler.getTask(null, null, null, singletonList("-proc:none"), null, singletonList(source));
+        task.analyze();
+        typeUtils = task.getTypes();
+        TypeElement holder = task.getElements().getTypeElement("test.Holder");
+        fieldTypes = ElementFilter.fieldsIn(holder.getEnclosedElements()).stream()
+                .collect(toMap(field -> field.getSimpleName().toString(), VariableElement::asType));
+    }
+
+    private static Function<TypeMirror, TypeNameWithCardinality> resolver() {
+        return TypeNameWithCardinality.function(typeUtils,
+                asList("java.util.Optional", "test.Holder.Box"),
+                asList("java.lang.Iterable", "test.Holder.Bag"));
+    }
+
+    private static void assertReference(Function<TypeMirror, TypeNameWithCardinality> resolver,
+                                        String field, String qualifiedName, String cardinality) {
+        TypeNameWithCardinality reference = resolver.apply(fieldTypes.get(field));
+        assertThat(field + " type", reference.typeName.qualified, is(qualifiedName));
+        assertThat(field + " cardinality", reference.cardinality, is(cardinality));
+    }
+
+    @Test
+    public void testNoContainer() {
+        assertReference(resolver(), "single", "test.Holder.Foo", null);
+    }
+
+    @Test
+    public void testArray() {
+        assertReference(resolver(), "array", "test.Holder.Foo", "*");
+    }
+
+    @Test
+    public void testTypeArgumentIndex() {
+        Function<TypeMirror, TypeNameWithCardinality> resolver = resolver();
+        assertReference(resolver, "fooList", "test.Holder.Foo", "*");
+        assertReference(resolver, "fooPair", "test.Holder.Foo", "*");
+        assertReference(resolver, "optional", "test.Holder.Foo", "0..1");
+    }
+
+    @Test
+    public void testFixedTypeArgument() {
+        Function<TypeMirror, TypeNameWithCardinality> resolver = resolver();
+        assertReference(resolver, "foos", "test.Holder.Foo", "*");
+        assertReference(resolver, "fooBag", "test.Holder.Foo", "*");
+    }
+
+    @Test
+    public void testParameterizedTypeArgumentFallsBackToSupertypes() {
+        assertReference(resolver(), "lists", "java.util.List", "*");
+    }
+
+    @Test
+    public void testRawTypeFallsBackToSupertypes() {
+        TypeNameWithCardinality reference = resolver().apply(fieldTypes.get("raw"));
+        assertThat("raw type", reference.typeName.qualified, is("java.util.List"));
+        assertThat("raw cardinality", reference.cardinality, is(nullValue()));
+    }
+
+    @Test
+    public void testTypeArgumentOfEnclosingTypeFallsBackToSupertypes() {
+        Function<TypeMirror, TypeNameWithCardinality> resolver = resolver();
+        assertReference(resolver, "fooInner", "test.Holder.Foo", "*");
+        assertReference(resolver, "barInner", "test.Holder.Bar", "*");
+    }
+
+    @Test
+    public void testCachedResolutionForDifferentParameterizations() {
+        Function<TypeMirror, TypeNameWithCardinality> resolver = resolver();
+        assertReference(resolver, "fooList", "test.Holder.Foo", "*");
+        assertReference(resolver, "barList", "test.Holder.Bar", "*");
+        assertReference(resolver, "fooPair", "test.Holder.Foo", "*");
+        assertReference(resolver, "barPair", "test.Holder.Bar", "*");
+        assertReference(resolver, "fooBox", "test.Holder.Foo", "0..1");
+        assertReference(resolver, "barBox", "test.Holder.Bar", "0..1");
+        assertReference(resolver, "fooList", "test.Holder.Foo", "*");
+    }
+
+    @Test
+    public void testCustomContainerTypes() {
+        Function<TypeMirror, TypeNameWithCardinality> resolver = resolver();
+        assertReference(resolver, "barBox", "test.Holder.Bar", "0..1");
+        assertReference(resolver, "barBag", "test.Holder.Bar", "*");
+    }
+
+}
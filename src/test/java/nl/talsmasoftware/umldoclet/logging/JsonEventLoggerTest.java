@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.logging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static nl.talsmasoftware.umldoclet.util.Testing.read;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class JsonEventLoggerTest {
+
+    private File logFile;
+
+    @Before
+    public void createLogFile() throws IOException {
+        logFile = File.createTempFile("events-", ".jsonl");
+    }
+
+    @After
+    public void deleteLogFile() {
+        assertThat("Delete " + logFile, logFile.delete(), is(true));
+    }
+
+    @Test
+    public void testEventsWrittenAsJsonLines() throws IOException {
+        try (JsonEventLogger eventLogger = new JsonEventLogger(logFile)) {
+            eventLogger.info(Message.INFO_GENERATING_FILE, "some/file.puml");
+            eventLogger.debug(Message.DEBUG_RENDERED_IMAGE_FILE, "some/file.svg", "SVG", 1234L, 56L);
+            eventLogger.warn(Message.WARNING_UNRECOGNIZED_IMAGE_FORMAT, "doc");
+        }
+
+        String[] lines = read(logFile).split("\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], startsWith("{\"timestamp\":\""));
+        assertThat(lines[0], containsString(
+                "\"level\":\"info\",\"message\":\"INFO_GENERATING_FILE\",\"args\":[\"some/file.puml\"]}"));
+        assertThat(lines[1], containsString(
+                "\"level\":\"debug\",\"message\":\"DEBUG_RENDERED_IMAGE_FILE\",\"args\":[\"some/file.svg\",\"SVG\",1234,56]}"));
+        assertThat(lines[2], containsString(
+                "\"level\":\"warn\",\"message\":\"WARNING_UNRECOGNIZED_IMAGE_FORMAT\",\"args\":[\"doc\"]}"));
+    }
+
+    @Test
+    public void testEscapedArguments() throws IOException {
+        try (JsonEventLogger eventLogger = new JsonEventLogger(logFile)) {
+            eventLogger.error(Message.ERROR_COULDNT_RENDER_UML, "C:\\dir\\\"quoted\".puml", "line 1\nline 2", null);
+        }
+
+        assertThat(read(logFile), containsString(
+                "\"args\":[\"C:\\\\dir\\\\\\\"quoted\\\".puml\",\"line 1\\nline 2\",null]}"));
+    }
+
+    @Test
+    public void testEventsAfterCloseAreIgnored() throws IOException {
+        JsonEventLogger eventLogger = new JsonEventLogger(logFile);
+        eventLogger.close();
+        eventLogger.info(Message.INFO_GENERATING_FILE, "ignored");
+        eventLogger.close();
+
+        assertThat(logFile.length(), is(0L));
+    }
+
+}
@@ -24,6 +24,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class MessageTest {
     private static final Locale DUTCH = new Locale("nl", "NL");
@@ -38,4 +39,23 @@ public class MessageTest {
         stream(Message.values()).forEach(key -> assertThat("Dutch " + key.name(), key.toString(DUTCH), is(notNullValue())));
     }
 
+    @Test
+    public void testPatternIsCachedPerLocale() {
+        assertThat(Message.INFO_GENERATING_FILE.toString(DUTCH),
+                is(sameInstance(Message.INFO_GENERATING_FILE.toString(DUTCH))));
+        assertThat(Message.INFO_GENERATING_FILE.toString(Locale.ENGLISH), is("Generating {0}..."));
+        assertThat(Message.INFO_GENERATING_FILE.toString(DUTCH), is("Genereren {0}..."));
+    }
+
+    @Test
+    public void testFormat() {
+        assertThat(Message.INFO_GENERATING_FILE.format(Locale.ENGLISH, "some file"), is("Generating some file..."));
+        assertThat(Message.INFO_GENERATING_FILE.format(DUTCH, "bestand"), is("Genereren bestand..."));
+    }
+
+    @Test
+    public void testFormatWithoutArguments() {
+        assertThat(Message.INFO_GENERATING_FILE.format(Locale.ENGLISH), is("Generating {0}..."));
+    }
+
 }
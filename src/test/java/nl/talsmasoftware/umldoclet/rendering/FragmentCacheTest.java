@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class FragmentCacheTest {
+
+    private FragmentCache cache;
+    private AtomicInteger renderings;
+
+    @Before
+    public void createCache() {
+        cache = new FragmentCache();
+        renderings = new AtomicInteger(0);
+    }
+
+    private String render(String fragment) {
+        renderings.incrementAndGet();
+        return fragment;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        cache.get(null, () -> "fragment");
+    }
+
+    @Test
+    public void testFragmentIsRenderedOnce() {
+        assertThat(cache.get("a.B", () -> render("first")), is("first"));
+        assertThat(cache.get("a.B", () -> render("second")), is("first"));
+        assertThat(cache.get("a.C", () -> render("third")), is("third"));
+        assertThat(renderings.get(), is(2));
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(2L));
+    }
+
+    @Test
+    public void testClear() {
+        cache.get("a.B", () -> render("first"));
+        cache.clear();
+        assertThat(cache.hits(), is(0L));
+        assertThat(cache.misses(), is(0L));
+        assertThat(cache.get("a.B", () -> render("second")), is("second"));
+        assertThat(renderings.get(), is(2));
+    }
+
+    @Test
+    public void testToString() {
+        cache.get("a.B", () -> render("first"));
+        assertThat(cache, hasToString("FragmentCache{size=1, hits=0, misses=1}"));
+    }
+
+}
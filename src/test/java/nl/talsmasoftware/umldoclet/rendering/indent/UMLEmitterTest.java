@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.indent;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static nl.talsmasoftware.umldoclet.rendering.writers.ThrowingWriter.throwing;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class UMLEmitterTest {
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    public void testIndentationAsState() {
+        UMLEmitter emitter = new UMLEmitter(Indentation.DEFAULT);
+        assertThat(emitter.indent(), is(sameInstance(emitter)));
+        assertThat(emitter.getIndentation(), is(equalTo(Indentation.DEFAULT.increase())));
+        assertThat(emitter.unindent().unindent().getIndentation(), is(equalTo(Indentation.DEFAULT)));
+    }
+
+    @Test
+    public void testIndentedLines() {
+        UMLEmitter emitter = new UMLEmitter(Indentation.spaces(2, 0));
+        emitter.append("class A {").newline().indent();
+        emitter.append("+field").newline().append("multi\nline").newline().unindent();
+        emitter.append('}').newline();
+        assertThat(emitter, hasToString("class A {" + NL + "  +field" + NL + "  multi\n  line" + NL + "}" + NL));
+    }
+
+    @Test
+    public void testWhitespace() {
+        UMLEmitter emitter = new UMLEmitter(Indentation.DEFAULT);
+        emitter.append("class").whitespace().append("A").whitespace().whitespace().append(" [[A.html]]").whitespace();
+        assertThat(emitter, hasToString("class A [[A.html]]"));
+        emitter.whitespace().append("").append('{');
+        assertThat(emitter, hasToString("class A [[A.html]] {"));
+    }
+
+    @Test
+    public void testGrowingBuffer() {
+        UMLEmitter emitter = new UMLEmitter(Indentation.DEFAULT, 0);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            emitter.append("line ").append(Integer.toString(i), 0, 1).newline();
+            expected.append("line ").append(Integer.toString(i).charAt(0)).append(NL);
+        }
+        assertThat(emitter.length(), is(expected.length()));
+        assertThat(emitter, hasToString(expected.toString()));
+        assertThat(emitter.subSequence(0, 6), hasToString("line 0"));
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        StringWriter output = new StringWriter();
+        new UMLEmitter(null).append("@startuml").newline().writeTo(output);
+        assertThat(output, hasToString("@startuml" + NL));
+    }
+
+    @Test
+    public void testWriteTo_rethrowingIOExceptions() {
+        IOException ioException = new IOException("I/O exception!");
+        try {
+            new UMLEmitter(null).append("@startuml").writeTo(throwing(ioException));
+            fail("I/O exception expected.");
+        } catch (IOException expected) {
+            assertThat(expected, is(sameInstance(ioException)));
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.plantuml;
+
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeThat;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class ImageRenderQueueTest {
+
+    @Test
+    public void testImmediateRendering() {
+        ImageRenderQueue queue = new ImageRenderQueue(0);
+        Queue<String> rendered = new ConcurrentLinkedQueue<>();
+        queue.submit(() -> rendered.add(Thread.currentThread().getName()));
+
+        assertThat(queue.isBatched(), is(false));
+        assertThat(rendered, contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testBatchedRendering() {
+        ImageRenderQueue queue = new ImageRenderQueue(3);
+        Queue<String> rendered = new ConcurrentLinkedQueue<>();
+        for (int i = 1; i <= 10; i++) {
+            final String diagram = "diagram" + i;
+            queue.submit(() -> rendered.add(diagram));
+        }
+        queue.awaitCompletion();
+
+        assertThat(queue.isBatched(), is(true));
+        assertThat(rendered, hasSize(10));
+        assertThat(rendered, containsInAnyOrder("diagram1", "diagram2", "diagram3", "diagram4", "diagram5",
+                "diagram6", "diagram7", "diagram8", "diagram9", "diagram10"));
+    }
+
+    @Test
+    public void testBatchesRenderedByWorkerThreads() {
+        ImageRenderQueue queue = new ImageRenderQueue(1);
+        Queue<String> threadNames = new ConcurrentLinkedQueue<>();
+        queue.submit(() -> threadNames.add(Thread.currentThread().getName()));
+        queue.awaitCompletion();
+
+        assertThat(threadNames, hasSize(1));
+        assertThat(threadNames.peek(), is(not(Thread.currentThread().getName())));
+    }
+
+    @Test
+    public void testRenderingsOfOneBatchRunInParallel() {
+        assumeThat("Parallel common pool", ForkJoinPool.commonPool().getParallelism(), is(greaterThan(1)));
+        ImageRenderQueue queue = new ImageRenderQueue(2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Queue<Boolean> parallel = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 2; i++) {
+            queue.submit(() -> {
+                bothStarted.countDown();
+                try {
+                    return parallel.add(bothStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+        }
+        queue.awaitCompletion();
+
+        assertThat(parallel, contains(true, true));
+    }
+
+    @Test
+    public void testBatchesAreRenderedByTheGeneratingPool() throws Exception {
+        ImageRenderQueue queue = new ImageRenderQueue(1);
+        ForkJoinPool generatingPool = new ForkJoinPool(1);
+        Queue<ForkJoinPool> pools = new ConcurrentLinkedQueue<>();
+        try {
+            generatingPool.submit(() -> queue.submit(() -> pools.add(ForkJoinTask.getPool()))).get();
+            queue.awaitCompletion();
+        } finally {
+            generatingPool.shutdown();
+        }
+
+        assertThat(pools, hasSize(1));
+        assertThat(pools.peek(), is(sameInstance(generatingPool)));
+    }
+
+    @Test
+    public void testFailedRenderingsAreReported() {
+        for (int batchSize : new int[]{0, 2}) {
+            ImageRenderQueue queue = new ImageRenderQueue(batchSize);
+            queue.submit(() -> true);
+            queue.submit(() -> false);
+            queue.submit(() -> true);
+            assertThat("Batch size " + batchSize, queue.awaitCompletion(), is(false));
+
+            queue.submit(() -> true);
+            assertThat("Batch size " + batchSize + " after completion", queue.awaitCompletion(), is(true));
+        }
+    }
+
+    @Test
+    public void testReuseAfterCompletion() {
+        ImageRenderQueue queue = new ImageRenderQueue(5);
+        Queue<String> rendered = new ConcurrentLinkedQueue<>();
+        queue.submit(() -> rendered.add("first"));
+        queue.awaitCompletion();
+        queue.submit(() -> rendered.add("second"));
+        queue.awaitCompletion();
+
+        assertThat(rendered, contains("first", "second"));
+    }
+
+    @Test
+    public void testNegativeBatchSize() {
+        try {
+            new ImageRenderQueue(-1);
+            fail("Exception expected");
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage(), is("Negative batch size: -1"));
+        }
+    }
+
+}
@@ -24,11 +24,14 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasToString;
@@ -36,8 +39,11 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.stringContainsInOrder;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Sjoerd Talsma
@@ -59,6 +65,7 @@ public class PlantumlImageTest {
     public void cleanupTempdir() {
         Stream.of(tempdir.listFiles()).forEach(f -> assertThat("Delete " + f, f.delete(), is(true)));
         assertThat("Delete " + tempdir, tempdir.delete(), is(true));
+        verify(config, atLeast(0)).writeIfChanged();
         verifyNoMoreInteractions(config);
     }
 
@@ -128,8 +135,37 @@ public class PlantumlImageTest {
     @Test
     public void testRenderImage() throws IOException {
         File png = new File(tempdir, "diagram.png");
-        PlantumlImage.fromFile(config, png).get().renderPlantuml(uml);
+        long bytes = PlantumlImage.fromFile(config, png).get().renderPlantuml(uml);
         assertThat(png.isFile(), is(true));
         assertThat(png.length(), is(greaterThan(0L)));
+        assertThat(bytes, is(png.length()));
+    }
+
+    @Test
+    public void testRenderImage_writeIfChanged() throws IOException {
+        when(config.writeIfChanged()).thenReturn(true);
+        File svg = new File(tempdir, "diagram.svg");
+        PlantumlImage.fromFile(config, svg).get().renderPlantuml(uml);
+        assertThat(svg.isFile(), is(true));
+        assertThat(svg.setLastModified(1000L), is(true));
+
+        PlantumlImage.fromFile(config, svg).get().renderPlantuml(uml);
+        assertThat(svg.lastModified(), is(1000L));
+    }
+
+    @Test
+    public void testRenderImage_keepsLinkToAnnouncedDiagram() throws IOException {
+        DiagramManifest manifest = new DiagramManifest();
+        when(config.diagramManifest()).thenReturn(manifest);
+        String linkedUml = "@startuml\nclass Alpha [[Beta.html]]\n@enduml";
+        File svg = new File(tempdir, "Alpha.svg");
+
+        PlantumlImage.fromFile(config, svg).get().renderPlantuml(linkedUml);
+        assertThat(new String(Files.readAllBytes(svg.toPath()), UTF_8), not(containsString("Beta.html")));
+
+        manifest.expect(new File(tempdir, "Beta.puml"));
+        PlantumlImage.fromFile(config, svg).get().renderPlantuml(linkedUml);
+        assertThat(new String(Files.readAllBytes(svg.toPath()), UTF_8), containsString("Beta.html"));
+        verify(config, atLeast(1)).diagramManifest();
     }
 }
@@ -16,6 +16,8 @@
 package nl.talsmasoftware.umldoclet.rendering.plantuml;
 
 import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.configuration.LayoutEngine;
 import nl.talsmasoftware.umldoclet.logging.Logger;
 import nl.talsmasoftware.umldoclet.logging.Message;
 import org.junit.After;
@@ -27,17 +29,22 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.stream.Stream;
 
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_RENDERED_IMAGE_FILE;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_UNCHANGED_IMAGE_FILE;
 import static nl.talsmasoftware.umldoclet.logging.Message.INFO_GENERATING_FILE;
 import static nl.talsmasoftware.umldoclet.logging.Message.WARNING_UNRECOGNIZED_IMAGE_FORMAT;
 import static nl.talsmasoftware.umldoclet.util.Testing.read;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -46,9 +53,11 @@ import static org.mockito.Mockito.when;
  * @author Sjoerd Talsma
  */
 public class PlantumlImageWriterTest {
+    private static final String GRAPHVIZ_DOT = "GRAPHVIZ_DOT";
     private static String exampleUml = "@startuml\nversion\n@enduml";
     private Configuration mockConfig;
     private Logger mockLogger;
+    private ImageConfig mockImages;
     private File tempdir;
 
     @Before
@@ -57,6 +66,10 @@ public class PlantumlImageWriterTest {
         mockLogger = mock(Logger.class);
         when(mockConfig.logger()).thenReturn(mockLogger);
         when(mockConfig.umlCharset()).thenReturn(Charset.forName("UTF-8"));
+        mockImages = mock(ImageConfig.class);
+        when(mockConfig.images()).thenReturn(mockImages);
+        when(mockImages.layoutEngine()).thenReturn(LayoutEngine.GRAPHVIZ);
+        when(mockConfig.imageRenderQueue()).thenReturn(new ImageRenderQueue(0));
     }
 
     @Before
@@ -75,8 +88,12 @@ public class PlantumlImageWriterTest {
     public void verifyMocks() {
         verify(mockConfig, atLeast(0)).logger();
         verify(mockConfig, atLeast(0)).umlCharset();
+        verify(mockConfig, atLeast(0)).images();
+        verify(mockConfig, atLeast(0)).imageRenderQueue();
+        verify(mockImages, atLeast(0)).layoutEngine();
+        verify(mockConfig, atLeast(0)).writeIfChanged();
         verify(mockLogger, atLeast(0)).debug(any(Message.class), any());
-        verifyNoMoreInteractions(mockConfig, mockLogger);
+        verifyNoMoreInteractions(mockConfig, mockImages, mockLogger);
     }
 
 
@@ -91,6 +108,73 @@ public class PlantumlImageWriterTest {
 
         verify(mockLogger).info(eq(INFO_GENERATING_FILE), eq(svg.getPath()));
         assertThat(svg + " exists?", svg.isFile(), is(true));
+        verify(mockLogger).debug(eq(DEBUG_RENDERED_IMAGE_FILE),
+                eq(svg.getPath()), eq("SVG"), eq(svg.length()), any(Long.class));
+    }
+
+    @Test
+    public void testSmetanaLayout() throws IOException {
+        when(mockImages.layoutEngine()).thenReturn(LayoutEngine.SMETANA);
+        String classUml = "@startuml\nclass Alpha\nclass Beta\nAlpha --> Beta\n@enduml\n";
+        File puml = new File(tempdir, "smetana.puml");
+        File svg = new File(tempdir, "smetana.svg");
+        // Make sure Graphviz cannot be used: without Smetana, PlantUML renders its error image instead.
+        String graphvizDot = System.getProperty(GRAPHVIZ_DOT);
+        System.setProperty(GRAPHVIZ_DOT, new File(tempdir, "no-dot-executable").getPath());
+        try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, puml, svg)) {
+            writer.write(classUml);
+        } finally {
+            if (graphvizDot == null) System.clearProperty(GRAPHVIZ_DOT);
+            else System.setProperty(GRAPHVIZ_DOT, graphvizDot);
+        }
+
+        assertThat("PlantUML file without layout pragma", read(puml), is(classUml));
+        verify(mockLogger).info(eq(INFO_GENERATING_FILE), eq(svg.getPath()));
+        String image = read(svg);
+        assertThat(image, containsString(">Alpha</text>"));
+        assertThat(image, containsString(">Beta</text>"));
+        assertThat(image, not(containsString("Dot Executable")));
+        assertThat(image, not(containsString("Cannot find Graphviz")));
+    }
+
+    @Test
+    public void testBatchedRendering() throws IOException {
+        ImageRenderQueue renderQueue = new ImageRenderQueue(2);
+        when(mockConfig.imageRenderQueue()).thenReturn(renderQueue);
+        File[] svgs = new File[3];
+        for (int i = 0; i < svgs.length; i++) {
+            svgs[i] = new File(tempdir, "batched" + i + ".svg");
+            try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, new File(tempdir, "batched" + i + ".puml"), svgs[i])) {
+                writer.write(exampleUml);
+            }
+        }
+
+        assertThat("Rendering succeeded", renderQueue.awaitCompletion(), is(true));
+        for (File svg : svgs) {
+            verify(mockLogger).info(eq(INFO_GENERATING_FILE), eq(svg.getPath()));
+            assertThat(svg + " exists?", svg.isFile(), is(true));
+        }
+    }
+
+    @Test
+    public void testWriteIfChanged_unchangedDiagramIsNotRenderedAgain() throws IOException {
+        when(mockConfig.writeIfChanged()).thenReturn(true);
+        File puml = new File(tempdir, "unchanged.puml");
+        File svg = new File(tempdir, "unchanged.svg");
+        for (String uml : new String[]{exampleUml, exampleUml, null, "@startuml\nlicense\n@enduml"}) {
+            if (uml == null) {
+                assertThat("Delete " + svg, svg.delete(), is(true));
+                uml = exampleUml;
+            }
+            try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, puml, svg)) {
+                writer.write(uml);
+            }
+        }
+
+        // Rendered initially, after the image was deleted and after the diagram was changed.
+        verify(mockLogger, times(3)).info(eq(INFO_GENERATING_FILE), eq(svg.getPath()));
+        verify(mockLogger).debug(eq(DEBUG_UNCHANGED_IMAGE_FILE), eq(svg.getPath()));
+        assertThat(svg + " exists?", svg.isFile(), is(true));
     }
 
     @Test
@@ -114,6 +198,31 @@ public class PlantumlImageWriterTest {
         }
     }
 
+    @Test
+    public void testWriteIfChanged() throws IOException {
+        when(mockConfig.writeIfChanged()).thenReturn(true);
+        File puml = new File(tempdir, "version.puml");
+        File svg = new File(tempdir, "version.svg");
+        try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, puml, svg)) {
+            writer.write(exampleUml);
+        }
+        assertThat(puml.setLastModified(1000L) && svg.setLastModified(1000L), is(true));
+
+        try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, puml, svg)) {
+            writer.write(exampleUml);
+        }
+        assertThat(read(puml), is(exampleUml));
+        assertThat(puml.lastModified(), is(1000L));
+        assertThat(svg.lastModified(), is(1000L));
+
+        try (PlantumlImageWriter writer = PlantumlImageWriter.create(mockConfig, puml, svg)) {
+            writer.write(exampleUml.replace("version", "license"));
+        }
+        assertThat(read(puml), is(exampleUml.replace("version", "license")));
+        assertThat(puml.lastModified(), is(not(1000L)));
+        verify(mockLogger, times(3)).info(eq(INFO_GENERATING_FILE), eq(svg.getPath()));
+    }
+
     @Test
     public void testUnknownImageFormat() throws IOException {
         File puml = new File(tempdir, "version.puml");
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.plantuml;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.configuration.LayoutEngine;
+import nl.talsmasoftware.umldoclet.logging.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_PHASE_DURATION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class PlantumlWarmupTest {
+
+    private Configuration config;
+    private ImageConfig images;
+    private Logger logger;
+
+    @Before
+    public void setup() {
+        config = mock(Configuration.class);
+        images = mock(ImageConfig.class);
+        logger = mock(Logger.class);
+        when(config.images()).thenReturn(images);
+        when(config.logger()).thenReturn(logger);
+        when(images.layoutEngine()).thenReturn(LayoutEngine.GRAPHVIZ);
+    }
+
+    @Test
+    public void testWarmupInBackground() throws InterruptedException {
+        when(images.formats()).thenReturn(asList("none", "svg"));
+
+        Thread warmup = PlantumlWarmup.start(config);
+        assertThat(warmup.isDaemon(), is(true));
+        warmup.join(60000L);
+
+        assertThat(warmup.isAlive(), is(false));
+        verify(logger).debug(eq(DEBUG_PHASE_DURATION), eq(PlantumlWarmup.PHASE), any());
+    }
+
+    @Test
+    public void testAwaitCompletion() {
+        when(images.formats()).thenReturn(singletonList("svg"));
+
+        Thread warmup = PlantumlWarmup.start(config);
+        PlantumlWarmup.awaitCompletion(warmup, 60000L);
+
+        assertThat(warmup.isAlive(), is(false));
+        verify(logger).debug(eq(DEBUG_PHASE_DURATION), eq(PlantumlWarmup.PHASE), any());
+        PlantumlWarmup.awaitCompletion(null, 0L);
+    }
+
+    @Test
+    public void testSmetanaIsWarmedUpForAutoLayout() {
+        assertThat(PlantumlWarmup.warmupUml(LayoutEngine.SMETANA), containsString(PlantumlImageWriter.SMETANA_PRAGMA));
+        assertThat(PlantumlWarmup.warmupUml(LayoutEngine.AUTO), containsString(PlantumlImageWriter.SMETANA_PRAGMA));
+        assertThat(PlantumlWarmup.warmupUml(LayoutEngine.GRAPHVIZ), not(containsString(PlantumlImageWriter.SMETANA_PRAGMA)));
+    }
+
+    @Test
+    public void testNoWarmupWithoutImages() throws InterruptedException {
+        when(images.formats()).thenReturn(singletonList("none"));
+
+        PlantumlWarmup.start(config).join(60000L);
+
+        verifyNoMoreInteractions(logger);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.writers;
+
+import nl.talsmasoftware.umldoclet.util.Testing;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class StringBuilderPoolTest {
+
+    @Test
+    public void testUnsupportedConstructor() {
+        Testing.assertUnsupportedConstructor(StringBuilderPool.class);
+    }
+
+    @Test
+    public void testReuseReleasedBuffer() {
+        StringBuilder buffer = StringBuilderPool.acquire();
+        buffer.append("The quick brown fox");
+        StringBuilderPool.release(buffer);
+
+        StringBuilder reused = StringBuilderPool.acquire();
+        try {
+            assertThat(reused, is(sameInstance(buffer)));
+            assertThat(reused, hasToString(""));
+        } finally {
+            StringBuilderPool.release(reused);
+        }
+    }
+
+    @Test
+    public void testNestedAcquire() {
+        StringBuilder outer = StringBuilderPool.acquire();
+        StringBuilder inner = StringBuilderPool.acquire();
+        try {
+            assertThat(inner, is(not(sameInstance(outer))));
+        } finally {
+            StringBuilderPool.release(inner);
+            StringBuilderPool.release(outer);
+        }
+    }
+
+    @Test
+    public void testLargeBuffersAreNotRetained() {
+        StringBuilder large = new StringBuilder(100000);
+        StringBuilderPool.release(large);
+        StringBuilder acquired = StringBuilderPool.acquire();
+        try {
+            assertThat(acquired, is(not(sameInstance(large))));
+        } finally {
+            StringBuilderPool.release(acquired);
+        }
+    }
+
+}
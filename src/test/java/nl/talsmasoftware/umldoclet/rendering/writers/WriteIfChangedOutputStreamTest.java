@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.rendering.writers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class WriteIfChangedOutputStreamTest {
+    private File tempfile;
+
+    @Before
+    public void createTempfile() throws IOException {
+        tempfile = File.createTempFile("write-if-changed-", ".tmp");
+    }
+
+    @After
+    public void deleteTempfile() {
+        assertThat("Delete " + tempfile, tempfile.delete(), is(true));
+    }
+
+    private WriteIfChangedOutputStream write(String content) throws IOException {
+        try (WriteIfChangedOutputStream out = new WriteIfChangedOutputStream(tempfile)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            return out;
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFile() throws FileNotFoundException {
+        new WriteIfChangedOutputStream(null);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testDirectory() throws FileNotFoundException {
+        new WriteIfChangedOutputStream(tempfile.getParentFile());
+    }
+
+    @Test
+    public void testWriteNewContent() throws IOException {
+        assertThat(write("The quick brown fox").isWritten(), is(true));
+        assertThat(new String(Files.readAllBytes(tempfile.toPath()), StandardCharsets.UTF_8), is("The quick brown fox"));
+    }
+
+    @Test
+    public void testUnchangedContent() throws IOException {
+        write("The quick brown fox");
+        assertThat(tempfile.setLastModified(1000L), is(true));
+
+        assertThat(write("The quick brown fox").isWritten(), is(false));
+        assertThat(tempfile.lastModified(), is(1000L));
+    }
+
+    @Test
+    public void testChangedContentOfSameSize() throws IOException {
+        write("The quick brown fox");
+        assertThat(write("The quick brown dog").isWritten(), is(true));
+        assertThat(new String(Files.readAllBytes(tempfile.toPath()), StandardCharsets.UTF_8), is("The quick brown dog"));
+    }
+
+    @Test
+    public void testToString() throws IOException {
+        try (WriteIfChangedOutputStream out = new WriteIfChangedOutputStream(tempfile)) {
+            assertThat(out, hasToString("WriteIfChangedOutputStream{" + tempfile + "}"));
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class NamespaceTest {
+
+    @Test
+    public void testContains() {
+        Namespace namespace = new Namespace(null, "a.b");
+        assertThat(namespace.contains(new TypeName("Type", "a.b.Type")), is(true));
+        assertThat(namespace.contains(new TypeName("Inner", "a.b.Type.Inner")), is(true));
+        assertThat(namespace.contains(new TypeName("Type", "a.bc.Type")), is(false));
+        assertThat(namespace.contains(new TypeName("b", "a.b")), is(false));
+        assertThat(namespace.contains(null), is(false));
+    }
+
+    @Test
+    public void testNestedNamespaces() {
+        Namespace outer = new Namespace(null, "a.b");
+        Namespace inner = new Namespace(null, "a.b.c");
+        outer.addChild(inner);
+        outer.addChild(new Namespace(null, "x.y"));
+        inner.addChild(Literal.line("class X"));
+
+        assertThat(outer.toString(), is(equalTo("namespace a.b {\n" +
+                "    namespace c {\n" +
+                "        class X\n" +
+                "    }\n" +
+                "    namespace x.y {\n" +
+                "    }\n" +
+                "}\n")));
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.FieldConfig;
+import nl.talsmasoftware.umldoclet.configuration.MethodConfig;
+import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class RenderContextTest {
+
+    private Configuration config;
+    private FieldConfig fields;
+    private MethodConfig methods;
+    private Type type;
+
+    @Before
+    public void setup() {
+        config = mock(Configuration.class);
+        fields = mock(FieldConfig.class);
+        methods = mock(MethodConfig.class);
+        when(config.indentation()).thenReturn(Indentation.spaces(2, 0));
+        when(config.fields()).thenReturn(fields);
+        when(config.methods()).thenReturn(methods);
+        type = new Type(new Namespace(null, "a.b"), Type.Classification.CLASS, new TypeName("Type", "a.b.Type"));
+    }
+
+    @Test
+    public void testContextOfMemberInClassDiagram() {
+        new ClassDiagram(config, type);
+        Method method = new Method(type, Visibility.PUBLIC, false, false, "method", new Parameters(), null);
+
+        RenderContext context = RenderContext.of(method);
+        assertThat(context.diagramPackage(), is(sameInstance(Symbol.of("a.b"))));
+        assertThat(context.namespace(), is(nullValue()));
+        assertThat(context.indentation(), is(Indentation.spaces(2, 0)));
+        assertThat(context.fields(), is(sameInstance(fields)));
+        assertThat(context.methods(), is(sameInstance(methods)));
+        verify(config, times(1)).fields();
+        verify(config, times(1)).methods();
+    }
+
+    @Test
+    public void testInNamespace() {
+        RenderContext context = RenderContext.of(type);
+        Namespace namespace = type.getNamespace();
+        RenderContext inNamespace = context.inNamespace(namespace);
+        assertThat(inNamespace.namespace(), is(sameInstance(namespace)));
+        assertThat(inNamespace.inNamespace(namespace), is(sameInstance(inNamespace)));
+        assertThat(inNamespace.indentation(), is(context.indentation()));
+    }
+
+    @Test
+    public void testContextWithoutDiagram() {
+        RenderContext context = RenderContext.of(type);
+        assertThat(context.diagramPackage(), is(nullValue()));
+        assertThat(context.indentation(), is(Indentation.DEFAULT));
+        try {
+            context.methods();
+            fail("Exception expected");
+        } catch (NullPointerException expected) {
+            assertThat(expected.getMessage(), containsString("method configuration"));
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class SymbolTest {
+
+    @Test
+    public void testInterning() {
+        Symbol symbol = Symbol.of("nl.talsmasoftware.umldoclet.uml.Symbol");
+        assertThat(Symbol.of(new String("nl.talsmasoftware.umldoclet.uml.Symbol")), is(sameInstance(symbol)));
+        assertThat(Symbol.of("nl.talsmasoftware.umldoclet.uml.Type"), is(not(sameInstance(symbol))));
+        assertThat(Symbol.of("nl.talsmasoftware.umldoclet.uml.Type").id, is(not(symbol.id)));
+    }
+
+    @Test
+    public void testReleasedSymbolsAreRemovedFromTheTable() {
+        Symbol symbol = Symbol.of("released.after.the.Run");
+        Symbol.SymbolReference reference = Symbol.TABLE.get("released.after.the.Run");
+        assertThat(reference.get(), is(sameInstance(symbol)));
+
+        assertThat("Enqueued", reference.enqueue(), is(true));
+        Symbol.removeReleasedSymbols();
+
+        assertThat(Symbol.TABLE.containsKey("released.after.the.Run"), is(false));
+        Symbol interned = Symbol.of("released.after.the.Run");
+        assertThat(interned, is(not(sameInstance(symbol))));
+        assertThat(interned.id, is(not(symbol.id)));
+        assertThat(Symbol.TABLE.get("released.after.the.Run").get(), is(sameInstance(interned)));
+    }
+
+    @Test
+    public void testReleasedReferenceDoesNotRemoveNewSymbol() {
+        Symbol symbol = Symbol.of("replaced.after.the.Run");
+        Symbol.SymbolReference reference = Symbol.TABLE.get("replaced.after.the.Run");
+        reference.clear();
+        Symbol replacement = Symbol.of("replaced.after.the.Run");
+        assertThat(replacement, is(not(sameInstance(symbol))));
+
+        assertThat("Enqueued", reference.enqueue(), is(true));
+        Symbol.removeReleasedSymbols();
+
+        assertThat(Symbol.TABLE.get("replaced.after.the.Run").get(), is(sameInstance(replacement)));
+    }
+
+    @Test
+    public void testPrefixAndSimpleName() {
+        Symbol symbol = Symbol.of("a.b.Outer.Inner");
+        assertThat(symbol.simpleName, is("Inner"));
+        assertThat(symbol.prefix(), is(sameInstance(Symbol.of("a.b.Outer"))));
+        assertThat(symbol.prefix().prefix().prefix(), is(sameInstance(Symbol.of("a"))));
+        assertThat(Symbol.of("a").prefix(), is(nullValue()));
+        assertThat(Symbol.of("a").simpleName, is("a"));
+    }
+
+    @Test
+    public void testIsWithin() {
+        Symbol symbol = Symbol.of("a.b.Outer.Inner");
+        assertThat(symbol.isWithin(Symbol.of("a.b.Outer")), is(true));
+        assertThat(symbol.isWithin(Symbol.of("a.b")), is(true));
+        assertThat(symbol.isWithin(Symbol.of("a")), is(true));
+        assertThat(symbol.isWithin(symbol), is(false));
+        assertThat(symbol.isWithin(Symbol.of("a.b.Out")), is(false));
+        assertThat(Symbol.of("a.bc.Type").isWithin(Symbol.of("a.b")), is(false));
+    }
+
+    @Test
+    public void testRelativeNameStart() {
+        assertThat(Symbol.of("a.b.Outer.Inner").relativeNameStart(Symbol.of("a.b")), is(4));
+        assertThat(Symbol.of("a.b.Outer.Inner").relativeNameStart(Symbol.of("a.b.Outer")), is(10));
+        assertThat(Symbol.of("a.b.Outer").relativeNameStart(Symbol.of("a.c")), is(0));
+        assertThat(Symbol.of("a.b").relativeNameStart(Symbol.of("a.b")), is(0));
+        assertThat(Symbol.of("a.b").relativeNameStart(null), is(0));
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertThat(Symbol.of("a.B").compareTo(Symbol.of("a.B")), is(0));
+        assertThat(Symbol.of("a.b").compareTo(Symbol.of("a.C")), is(lessThan(0)));
+        assertThat(Symbol.of("a.B").compareTo(Symbol.of("a.b")), is(lessThan(0)));
+        assertThat(Symbol.of("a.b").compareTo(Symbol.of("a.B")), is(greaterThan(0)));
+    }
+
+    @Test
+    public void testNamespaceContainsTypeName() {
+        Namespace namespace = new Namespace(null, "a.b");
+        assertThat(namespace.contains(new TypeName("Type", "a.b.Type")), is(true));
+        assertThat(namespace.contains(new TypeName("Outer.Inner", "a.b.Outer.Inner")), is(true));
+        assertThat(namespace.contains(new TypeName("Type", "a.bc.Type")), is(false));
+        assertThat(namespace.contains(new TypeName("b", "a.b")), is(false));
+    }
+
+}
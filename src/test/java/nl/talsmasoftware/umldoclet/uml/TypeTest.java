@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class TypeTest {
+    private static final TypeName STRING = new TypeName("String", "java.lang.String");
+
+    private Type type;
+    private Field nameField;
+    private Method getName, setName, toString;
+
+    @Before
+    public void createType() {
+        type = new Type(new Namespace(null, "a.b"), Type.Classification.CLASS, new TypeName("Bean", "a.b.Bean"));
+        nameField = new Field(type, Visibility.PRIVATE, false, "name", STRING);
+        getName = new Method(type, Visibility.PUBLIC, false, false, "getName", new Parameters(), STRING);
+        setName = new Method(type, Visibility.PUBLIC, false, false, "setName",
+                new Parameters().add("name", STRING), null);
+        toString = new Method(type, Visibility.PUBLIC, false, false, "toString", new Parameters(), STRING);
+        type.addChild(nameField);
+        type.addChild(getName);
+        type.addChild(setName);
+        type.addChild(toString);
+    }
+
+    @Test
+    public void testFindMembers() {
+        assertThat(type.findMembers(Field.class, "name"), contains(nameField));
+        assertThat(type.findMembers(Method.class, "name"), is(empty()));
+        assertThat(type.findMembers(Method.class, "getName"), contains(getName));
+        assertThat(type.findMembers(TypeMember.class, "unknown"), is(empty()));
+    }
+
+    @Test
+    public void testRemoveMembersKeepsOrder() {
+        assertThat(type.removeMembers(Method.class, "name"), is(false));
+        assertThat(type.removeMembers(Method.class, "getName"), is(true));
+        assertThat(type.removeMembers(Field.class, "name"), is(true));
+        assertThat(new ArrayList<>(type.getChildren()), contains(setName, toString));
+        assertThat(type.findMembers(Field.class, "name"), is(empty()));
+    }
+
+    @Test
+    public void testRemovalThroughChildrenUpdatesIndex() {
+        type.getChildren().removeIf(child -> child instanceof TypeMember && !((TypeMember) child).name.startsWith("set"));
+        assertThat(new ArrayList<>(type.getChildren()), contains(setName));
+        assertThat(type.findMembers(Method.class, "getName"), is(empty()));
+        assertThat(type.findMembers(Method.class, "setName"), contains(setName));
+    }
+
+    @Test
+    public void testDuplicateMembersAreIgnored() {
+        type.addChild(new Field(type, Visibility.PUBLIC, false, "name", STRING));
+        List<Field> fields = type.findMembers(Field.class, "name");
+        assertThat(fields, contains(nameField));
+        assertThat(type.getChildren(), hasSize(4));
+    }
+
+    @Test
+    public void testMemberOrdering() {
+        Method getname = new Method(type, Visibility.PUBLIC, false, false, "getname", new Parameters(), STRING);
+        assertThat(nameField.compareTo(getName), is(lessThan(0)));
+        assertThat(getName.compareTo(setName), is(lessThan(0)));
+        assertThat(getName.compareTo(getname), is(lessThan(0)));
+        assertThat(getname.compareTo(getName), is(greaterThan(0)));
+        assertThat(getName.compareTo(new Method(type, Visibility.PRIVATE, false, false, "getName", new Parameters(), null)), is(0));
+        assertThat(getName.compareTo(new Method(type, Visibility.PUBLIC, false, false, "getName",
+                new Parameters().add("locale", new TypeName("Locale", "java.util.Locale")), STRING)), is(lessThan(0)));
+        assertThat(nameField, is(equalTo(new Field(type, Visibility.PUBLIC, true, "name", null))));
+        assertThat(nameField.hashCode(), is(new Field(type, Visibility.PUBLIC, true, "name", null).hashCode()));
+    }
+
+    @Test
+    public void testNamespaceEquality() {
+        assertThat(new Namespace(null, "a.b"), is(equalTo(type.getNamespace())));
+        assertThat(new Namespace(null, "a.B"), is(not(equalTo(type.getNamespace()))));
+        assertThat(new Namespace(null, "a.B").compareTo(type.getNamespace()), is(lessThan(0)));
+        assertThat(new Namespace(null, "a.c").compareTo(new Namespace(null, "a.B")), is(greaterThan(0)));
+    }
+
+    @Test
+    public void testDerivedTypesCopyChildrenOnWrite() {
+        Type deprecated = type.deprecated();
+        Type withPackage = deprecated.addPackageToName();
+        assertThat(new ArrayList<>(withPackage.getChildren()), contains(nameField, getName, setName, toString));
+
+        deprecated.getChildren().removeIf(child -> child == toString);
+        assertThat(deprecated.getChildren(), hasSize(3));
+        assertThat(type.getChildren(), hasSize(4));
+        assertThat(withPackage.getChildren(), hasSize(4));
+
+        type.removeMembers(Field.class, "name");
+        assertThat(type.findMembers(Field.class, "name"), is(empty()));
+        assertThat(deprecated.findMembers(Field.class, "name"), contains(nameField));
+        assertThat(withPackage.findMembers(Field.class, "name"), contains(nameField));
+    }
+
+    @Test
+    public void testFragmentKeyIsClearedByModification() {
+        assertThat(fragmentKeyOf(type), is(nullValue()));
+        type.completeMembers();
+        assertThat(fragmentKeyOf(type), is("a.b.Bean"));
+        assertThat(fragmentKeyOf(type.deprecated()), is("a.b.Bean"));
+
+        type.removeMembers(Method.class, "toString");
+        assertThat(fragmentKeyOf(type), is(nullValue()));
+    }
+
+    @Test
+    public void testFragmentKeyOfAbstractMembers() {
+        Type iface = new Type(new Namespace(null, "a.b"), Type.Classification.INTERFACE, new TypeName("Named", "a.b.Named"));
+        iface.addChild(new Method(iface, Visibility.PUBLIC, true, false, "getName", new Parameters(), STRING));
+        iface.completeMembers();
+        assertThat(fragmentKeyOf(iface.retainAbstractMembers()), is("a.b.Named"));
+
+        Type superType = type.completeMembers().deprecated().retainAbstractMembers();
+        assertThat(superType.getChildren(), is(empty()));
+        assertThat(fragmentKeyOf(superType), is("a.b.Bean (abstract)"));
+        assertThat(fragmentKeyOf(type), is("a.b.Bean"));
+        assertThat(type.getChildren(), hasSize(4));
+    }
+
+    private static String fragmentKeyOf(Type type) {
+        return ((TypeChildren) type.getChildren()).fragmentKey();
+    }
+
+}
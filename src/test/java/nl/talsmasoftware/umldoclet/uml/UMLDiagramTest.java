@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.logging.Logger;
+import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+import nl.talsmasoftware.umldoclet.rendering.indent.UMLEmitter;
+import nl.talsmasoftware.umldoclet.rendering.plantuml.DiagramManifest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+import static nl.talsmasoftware.umldoclet.logging.Message.ERROR_COULDNT_RENDER_UML;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sjoerd Talsma
+ */
+public class UMLDiagramTest {
+
+    private Configuration config;
+    private Logger logger;
+    private DiagramManifest manifest;
+    private File pumlFile;
+
+    @Before
+    public void setUp() throws IOException {
+        config = mock(Configuration.class);
+        logger = mock(Logger.class);
+        ImageConfig images = mock(ImageConfig.class);
+        manifest = new DiagramManifest();
+        when(config.logger()).thenReturn(logger);
+        when(config.images()).thenReturn(images);
+        when(config.indentation()).thenReturn(Indentation.DEFAULT);
+        when(config.diagramManifest()).thenReturn(manifest);
+        when(images.directory()).thenReturn(Optional.empty());
+        when(images.formats()).thenReturn(emptyList());
+        pumlFile = File.createTempFile("uml-diagram-", ".puml");
+        assertThat("Delete " + pumlFile, pumlFile.delete(), is(true));
+    }
+
+    @Test
+    public void testEmissionErrorIsReported() {
+        final RuntimeException emissionError = new IllegalStateException("Emission failed");
+        UMLDiagram diagram = new TestDiagram(config, pumlFile);
+        diagram.children.add(new UMLPart(diagram) {
+            @Override
+            public UMLEmitter writeTo(UMLEmitter output, RenderContext context) {
+                throw emissionError;
+            }
+        });
+
+        assertThat(diagram.render(), is(false));
+        verify(logger).error(eq(ERROR_COULDNT_RENDER_UML), eq(pumlFile), eq(emissionError));
+        assertThat(pumlFile.exists(), is(false));
+        assertThat(manifest.isEmpty(), is(true));
+    }
+
+    private static class TestDiagram extends UMLDiagram {
+        private final File pumlFile;
+
+        private TestDiagram(Configuration config, File pumlFile) {
+            super(config);
+            this.pumlFile = pumlFile;
+        }
+
+        @Override
+        protected File pumlFile() {
+            return pumlFile;
+        }
+
+        @Override
+        protected File htmlFile() {
+            return new File(pumlFile.getParentFile(), "index.html");
+        }
+    }
+
+}
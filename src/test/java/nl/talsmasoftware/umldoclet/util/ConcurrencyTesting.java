@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2018 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Collections.unmodifiableList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Support for concurrency stress tests.
+ * <p>
+ * The {@link SchedulingRandom} describes its seed, so assertion messages that include it tell how a failing run
+ * can be repeated: by setting the {@code umldoclet.concurrency.seed} system property.
+ *
+ * @author Sjoerd Talsma
+ */
+public final class ConcurrencyTesting {
+    private static final long SYNTHETIC_SOURCES_SEED = 74L;
+    private static final long MAX_JITTER_NANOS = 200_000L;
+
+    private ConcurrencyTesting() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return A random generator for the scheduling of a stress test, seeded from the system property if present.
+     */
+    public static SchedulingRandom schedulingRandom() {
+        return new SchedulingRandom(Long.getLong("umldoclet.concurrency.seed", new Random().nextLong()));
+    }
+
+    /**
+     * Random generator for the scheduling of a stress test.
+     * Its {@link #toString()} names the seed, to be included in assertion messages.
+     */
+    public static final class SchedulingRandom extends Random {
+        public final long seed;
+
+        private SchedulingRandom(long seed) {
+            super(seed);
+            this.seed = seed;
+        }
+
+        @Override
+        public String toString() {
+            return "umldoclet.concurrency.seed=" + seed;
+        }
+    }
+
+    /**
+     * Runs the tasks from a pool of threads, started in random order with random delays.
+     *
+     * @param threadCount The number of threads to run the tasks with.
+     * @param random      The random generator determining the order and delays.
+     * @param tasks       The tasks to run.
+     * @param <T>         The result type of the tasks.
+     * @return The results of the tasks, in the order of the tasks (not the order in which they were run).
+     */
+    public static <T> List<T> runShuffled(int threadCount, Random random, List<? extends Callable<T>> tasks) {
+        final List<Integer> order = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) order.add(i);
+        Collections.shuffle(order, random);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<T>> futures = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        try {
+            for (int index : order) {
+                final Callable<T> task = tasks.get(index);
+                final long jitter = random.nextBoolean() ? (long) (random.nextDouble() * MAX_JITTER_NANOS) : 0L;
+                futures.set(index, pool.submit(() -> {
+                    start.await();
+                    if (jitter > 0L) LockSupport.parkNanos(jitter);
+                    else Thread.yield();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            final List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) results.add(future.get());
+            return unmodifiableList(results);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted running concurrent tasks.", ie);
+        } catch (ExecutionException ee) {
+            throw new AssertionError("Concurrent task failed (" + random + "): " + ee.getCause(), ee.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates synthetic sources: packages with related interfaces, enums, abstract and concrete classes,
+     * inner classes, generics and references across the packages.
+     * The generated sources are the same every time.
+     *
+     * @param sourceDir       The directory to generate the sources in.
+     * @param packageCount    The number of packages to generate.
+     * @param classesPerPackage The number of concrete classes per package.
+     * @return The generated source files.
+     */
+    public static List<File> generateSyntheticSources(File sourceDir, int packageCount, int classesPerPackage) {
+        final Random random = new Random(SYNTHETIC_SOURCES_SEED);
+        final List<File> sources = new ArrayList<>();
+        for (int p = 0; p < packageCount; p++) {
+            final String pkg = "synthetic.p" + p;
+            sources.add(write(sourceDir, pkg, "Shape" + p, "public interface Shape" + p + " {\n"
+                    + "    double area();\n\n"
+                    + "    default boolean isEmpty" + p + "() {\n        return area() == 0d;\n    }\n}\n"));
+            sources.add(write(sourceDir, pkg, "Source" + p, "public interface Source" + p + "<T> {\n"
+                    + "    T next();\n\n"
+                    + "    <R extends Comparable<? super R>> java.util.List<R> map(java.util.function.Function<? super T, R> f);\n}\n"));
+            sources.add(write(sourceDir, pkg, "Kind" + p, "public enum Kind" + p + " {\n    SMALL, MEDIUM, LARGE\n}\n"));
+            sources.add(write(sourceDir, pkg, "Base" + p, "public abstract class Base" + p + " implements Shape" + p + " {\n"
+                    + "    protected Kind" + p + " kind;\n\n"
+                    + "    public abstract String name();\n\n"
+                    + "    public Kind" + p + " getKind() {\n        return kind;\n    }\n}\n"));
+            for (int c = 0; c < classesPerPackage; c++) {
+                final String name = "Node" + p + "_" + c;
+                final String superclass = c == 0 ? "Base" + p
+                        : p > 0 && random.nextInt(3) == 0 ? node(random.nextInt(p), random.nextInt(classesPerPackage))
+                        : node(p, random.nextInt(c));
+                final String other = node(random.nextInt(packageCount), random.nextInt(classesPerPackage));
+                final int q = random.nextInt(packageCount);
+                final StringBuilder source = new StringBuilder();
+                if (random.nextInt(5) == 0) source.append("@Deprecated\n");
+                source.append("public class ").append(name).append(" extends ").append(superclass)
+                        .append(" implements synthetic.p").append(q).append(".Shape").append(q)
+                        .append(" {\n");
+                source.append("    private final java.util.List<").append(other).append("> children = new java.util.ArrayList<>();\n");
+                source.append("    protected java.util.Optional<synthetic.p").append(q).append(".Source").append(q)
+                        .append("<? extends ").append(name).append(">> source;\n");
+                source.append("    public static final int ORDER = ").append(c).append(";\n\n");
+                source.append("    public ").append(name).append("() {\n    }\n\n");
+                source.append("    public ").append(name).append("(").append(other).append(" child) {\n        children.add(child);\n    }\n\n");
+                if (c == 0) source.append("    public String name() {\n        return \"").append(name).append("\";\n    }\n\n");
+                source.append("    public double area() {\n        return children.size();\n    }\n\n");
+                source.append("    public int compareArea(").append(name).append(" other) {\n        return Double.compare(area(), other.area());\n    }\n\n");
+                source.append("    public java.util.List<").append(other).append("> get").append(name).append("Children() {\n        return children;\n    }\n\n");
+                source.append("    public <T extends ").append(name).append("> java.util.Map<String, T> index").append(p).append('_').append(c)
+                        .append("(java.util.Collection<? extends T> nodes) {\n")
+                        .append("        return java.util.Collections.emptyMap();\n    }\n");
+                if (random.nextBoolean()) {
+                    source.append("\n    public static class Builder {\n")
+                            .append("        private ").append(other).append(" child;\n\n")
+                            .append("        public Builder child(").append(other).append(" child) {\n")
+                            .append("            this.child = child;\n            return this;\n        }\n\n")
+                            .append("        public ").append(name).append(" build() {\n")
+                            .append("            return new ").append(name).append("(child);\n        }\n    }\n");
+                }
+                source.append("}\n");
+                sources.add(write(sourceDir, pkg, name, source.toString()));
+            }
+        }
+        return unmodifiableList(sources);
+    }
+
+    private static String node(int pkg, int index) {
+        return "synthetic.p" + pkg + ".Node" + pkg + "_" + index;
+    }
+
+    private static File write(File sourceDir, String pkg, String name, String body) {
+        final File file = new File(sourceDir, pkg.replace('.', '/') + '/' + name + ".java");
+        assertThat("Create " + file.getParentFile(), file.getParentFile().isDirectory() || file.getParentFile().mkdirs(), is(true));
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("package " + pkg + ";\n\n" + body);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Cannot write synthetic source " + file + ": " + ioe.getMessage(), ioe);
+        }
+        return file;
+    }
+
+}